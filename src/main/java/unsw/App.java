@@ -1,6 +1,7 @@
 package unsw;
 
 import spark.Request;
+import spark.Response;
 import spark.Spark;
 import unsw.blackout.BlackoutController;
 import unsw.blackout.FileTransferException;
@@ -12,31 +13,83 @@ import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializer;
 import com.google.gson.JsonSerializationContext;
 
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import javax.servlet.http.HttpServletResponse;
+
 import scintilla.Scintilla;
 
 public class App {
-    private static volatile Map<String, BlackoutController> sessionStates = new HashMap<>();
+    // Sessions unused for 30 minutes are evicted
+    private static final long SESSION_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(30);
+    private static final int MAX_SESSIONS = 1000;
+
+    private static final SessionRegistry sessionRegistry = new SessionRegistry(SESSION_TIME_TO_LIVE, MAX_SESSIONS);
+
+    // Subscribers that fall this many ticks behind are disconnected
+    private static final int MAX_QUEUED_EVENTS = 1000;
+    private static final long KEEP_ALIVE_SECONDS = 15;
+    private static final int MAX_SNAPSHOTS = 10000;
 
-    private static synchronized BlackoutController getBlackoutController(Request request) {
+    private static BlackoutController getBlackoutController(Request request) {
         String session = request.session().id();
         if (session == null) {
             throw new RuntimeException("No State found");
         }
 
-        if (sessionStates.containsKey(session)) {
-            return sessionStates.get(session);
-        } else {
-            BlackoutController bc = new BlackoutController();
-            sessionStates.put(session, bc);
-            return bc;
+        return sessionRegistry.getBlackoutController(session);
+    }
+
+    /**
+     * Gets a response from the snapshot cache, or 304 Not Modified if the
+     * client already has it
+     */
+    private static byte[] getSnapshot(Request request, Response response, SnapshotCache snapshotCache,
+            Supplier<Object> getResult) {
+        BlackoutController bc = getBlackoutController(request);
+        String key = request.pathInfo() + "?" + request.queryString();
+        SnapshotCache.Snapshot snapshot = snapshotCache.get(request.session().id(), key, bc, getResult);
+
+        response.type("application/json");
+        response.header("ETag", snapshot.getETag());
+        if (snapshot.matches(request.headers("If-None-Match"))) {
+            response.status(304);
+            return new byte[0];
+        }
+        return snapshot.getBody();
+    }
+
+    private static int getNumTicks(Request request) {
+        int n;
+        try {
+            n = Integer.parseInt(request.queryParamOrDefault("n", "1"));
+        } catch (NumberFormatException e) {
+            n = 1;
         }
+        if (n < 1)
+            n = 1;
+        return n;
+    }
+
+    private static Map<String, EntityInfoResponse> getAllInfo(BlackoutController bc) {
+        Map<String, EntityInfoResponse> result = new HashMap<>();
+        bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
+        return result;
     }
 
     public static void main(String[] args) throws Exception {
@@ -48,8 +101,22 @@ public class App {
         };
         gsonBuilder.registerTypeAdapter(Angle.class, serializer);
         Gson gson = gsonBuilder.create();
+        TickBroadcaster tickBroadcaster = new TickBroadcaster(gson::toJson, MAX_QUEUED_EVENTS);
+        SnapshotCache snapshotCache = new SnapshotCache(gson::toJson, MAX_SNAPSHOTS);
+        sessionRegistry.setEvictionListener(snapshotCache::removeSession);
+        SimulationStreamer simulationStreamer = new SimulationStreamer(gson, App::getAllInfo);
+
+        // Idle sessions are also evicted when no new sessions come in
+        ScheduledExecutorService sessionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sessionEvictor.scheduleWithFixedDelay(sessionRegistry::evictIdleSessions, 1, 1, TimeUnit.MINUTES);
 
-        Spark.after((request, response) -> {
+        // Set before the route runs, since streamed responses are already sent
+        // by the time after filters run
+        Spark.before((request, response) -> {
             response.header("Access-Control-Allow-Origin", "*");
             response.header("Access-Control-Allow-Methods", "*");
             response.header("Access-Control-Allow-Headers", "*");
@@ -93,10 +160,8 @@ public class App {
 
         Spark.get("/api/entity/info/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
-                return bc.getInfo(request.queryParams("id"));
-            }
-        }, gson::toJson);
+            return getSnapshot(request, response, snapshotCache, () -> bc.getInfo(request.queryParams("id")));
+        });
 
         Spark.post("/api/device/file/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
@@ -108,21 +173,21 @@ public class App {
 
         Spark.get("/api/device/all/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSnapshot(request, response, snapshotCache, () -> {
                 Map<String, EntityInfoResponse> result = new HashMap<>();
                 bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
                 return result;
-            }
-        }, gson::toJson);
+            });
+        });
 
         Spark.get("/api/satellite/all/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
-            synchronized (bc) {
+            return getSnapshot(request, response, snapshotCache, () -> {
                 Map<String, EntityInfoResponse> result = new HashMap<>();
                 bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
                 return result;
-            }
-        }, gson::toJson);
+            });
+        });
 
         Spark.get("/api/entity/entitiesInRange/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
@@ -145,6 +210,63 @@ public class App {
             }
         }, gson::toJson);
 
+        Spark.post("/api/sendFile/many/", "application/json", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            synchronized (bc) {
+                try {
+                    bc.sendFileToMany(request.queryParams("fileName"), request.queryParams("fromId"),
+                            Arrays.asList(request.queryParams("toIds").split(",")));
+                    return "";
+                } catch (FileTransferException ex) {
+                    return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+                }
+            }
+        }, gson::toJson);
+
+        Spark.post("/api/sendFile/queue/", "application/json", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            synchronized (bc) {
+                bc.setAdmissionQueue(Boolean.parseBoolean(request.queryParams("enabled")));
+                return "";
+            }
+        }, gson::toJson);
+
+        Spark.get("/api/sendFile/queue/", "application/json", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            synchronized (bc) {
+                return bc.getAdmissionQueueInfo();
+            }
+        }, gson::toJson);
+
+        Spark.post("/api/deliverFile/", "application/json", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            synchronized (bc) {
+                try {
+                    bc.deliverFile(request.queryParams("fileName"), request.queryParams("fromId"),
+                            request.queryParams("toId"));
+                    return "";
+                } catch (FileTransferException ex) {
+                    return ex.getClass().getSimpleName() + ":" + ex.getMessage();
+                }
+            }
+        }, gson::toJson);
+
+        Spark.get("/api/deliverFile/", "application/json", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            synchronized (bc) {
+                return bc.getDeliveryInfo();
+            }
+        }, gson::toJson);
+
+        Spark.get("/api/sessions/", "application/json", (request, response) -> {
+            Map<String, Long> result = new HashMap<>();
+            result.put("sessions", (long) sessionRegistry.getNumSessions());
+            result.put("hits", sessionRegistry.getHits());
+            result.put("misses", sessionRegistry.getMisses());
+            result.put("evictions", sessionRegistry.getEvictions());
+            return result;
+        }, gson::toJson);
+
         Spark.post("/api/createSlope/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
             synchronized (bc) {
@@ -157,29 +279,69 @@ public class App {
         Spark.post("/api/simulate/", "application/json", (request, response) -> {
             BlackoutController bc = getBlackoutController(request);
             synchronized (bc) {
-                int n;
-                try {
-                    n = Integer.parseInt(request.queryParamOrDefault("n", "1"));
-                } catch (NumberFormatException e) {
-                    n = 1;
-                }
-                if (n < 1)
-                    n = 1;
+                int n = getNumTicks(request);
+
+                // In delta mode only the first frame has every device and satellite
+                boolean delta = Boolean.parseBoolean(request.queryParamOrDefault("delta", "false"));
+                SimulationDeltaEncoder encoder = new SimulationDeltaEncoder();
 
-                List<Map<String, EntityInfoResponse>> results = new ArrayList<>();
+                List<Object> results = new ArrayList<>();
                 for (int i = 0; i < n; i++) {
                     bc.simulate();
 
-                    Map<String, EntityInfoResponse> result = new HashMap<>();
-                    bc.listSatelliteIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    bc.listDeviceIds().forEach(id -> result.put(id, bc.getInfo(id)));
-                    results.add(result);
+                    Map<String, EntityInfoResponse> result = getAllInfo(bc);
+                    tickBroadcaster.publish(request.session().id(), result);
+                    results.add(delta ? encoder.encode(result) : result);
                 }
 
                 return results;
             }
         }, gson::toJson);
 
+        // Writes each frame as its own line as soon as it is simulated, so
+        // frames are never all held in memory at once
+        Spark.post("/api/simulate/stream/", "application/x-ndjson", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            String sessionId = request.session().id();
+            int n = getNumTicks(request);
+            boolean delta = Boolean.parseBoolean(request.queryParamOrDefault("delta", "false"));
+
+            response.type("application/x-ndjson");
+            HttpServletResponse raw = response.raw();
+            Writer out = new OutputStreamWriter(raw.getOutputStream(), StandardCharsets.UTF_8);
+            simulationStreamer.stream(bc, n, delta, result -> tickBroadcaster.publish(sessionId, result), out);
+            return "";
+        });
+
+        // Pushes the session's state after every tick as Server-Sent Events,
+        // instead of clients polling for it
+        Spark.get("/api/events/", "text/event-stream", (request, response) -> {
+            BlackoutController bc = getBlackoutController(request);
+            String sessionId = request.session().id();
+            TickBroadcaster.Subscriber subscriber;
+            synchronized (bc) {
+                subscriber = tickBroadcaster.subscribe(sessionId, getAllInfo(bc));
+            }
+
+            response.type("text/event-stream");
+            response.header("Cache-Control", "no-cache");
+            HttpServletResponse raw = response.raw();
+            Writer out = new OutputStreamWriter(raw.getOutputStream(), StandardCharsets.UTF_8);
+            try {
+                while (!subscriber.isClosed()) {
+                    String event = subscriber.nextEvent(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                    // Comments keep the connection open and find clients that have gone
+                    out.write(event == null ? ": keep-alive\n\n" : event);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // The client disconnected
+            } finally {
+                tickBroadcaster.unsubscribe(sessionId, subscriber);
+            }
+            return "";
+        });
+
         Scintilla.start();
     }
 }
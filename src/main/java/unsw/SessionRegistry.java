@@ -0,0 +1,176 @@
+package unsw;
+
+import unsw.blackout.BlackoutController;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * SessionRegistry keeps a BlackoutController for every session. Looking up a
+ * session does not take a global lock, only a session being created locks its
+ * own entry. Sessions that have not been used for longer than the time to
+ * live are evicted, and once there are more sessions than allowed the least
+ * recently used ones are evicted too.
+ */
+public class SessionRegistry {
+    private final ConcurrentHashMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final long timeToLive;
+    private final int maxSessions;
+    private final LongSupplier clock;
+    private final AtomicBoolean evicting = new AtomicBoolean(false);
+    private volatile Consumer<String> evictionListener = sessionId -> {
+    };
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    private static class Session {
+        private final BlackoutController controller = new BlackoutController();
+        private volatile long lastAccessed;
+
+        private Session(long lastAccessed) {
+            this.lastAccessed = lastAccessed;
+        }
+    }
+
+    /**
+     * Creates a session registry that uses the current time in milliseconds
+     *
+     * @param timeToLive  milliseconds a session is kept for without being used
+     * @param maxSessions most sessions kept at once
+     */
+    public SessionRegistry(long timeToLive, int maxSessions) {
+        this(timeToLive, maxSessions, System::currentTimeMillis);
+    }
+
+    /**
+     * Creates a session registry
+     *
+     * @param timeToLive  time a session is kept for without being used
+     * @param maxSessions most sessions kept at once
+     * @param clock       current time, in the same unit as the time to live
+     */
+    public SessionRegistry(long timeToLive, int maxSessions, LongSupplier clock) {
+        this.timeToLive = timeToLive;
+        this.maxSessions = maxSessions;
+        this.clock = clock;
+    }
+
+    /**
+     * Sets what is told about every session that is evicted, e.g. to drop
+     * what is cached for it
+     *
+     * @param evictionListener given the id of each evicted session
+     */
+    public void setEvictionListener(Consumer<String> evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Gets the controller of the given session, creating a new one if the
+     * session is new or was evicted
+     *
+     * @param sessionId
+     * @return controller of the session
+     */
+    public BlackoutController getBlackoutController(String sessionId) {
+        long now = this.clock.getAsLong();
+        Session session = this.sessions.get(sessionId);
+        if (session != null && !isExpired(session, now)) {
+            session.lastAccessed = now;
+            this.hits.increment();
+            return session.controller;
+        }
+
+        if (session != null && this.sessions.remove(sessionId, session)) {
+            evicted(sessionId);
+        }
+
+        Session created = new Session(now);
+        session = this.sessions.computeIfAbsent(sessionId, id -> created);
+        if (session == created) {
+            this.misses.increment();
+            evictIdleSessions();
+        } else {
+            session.lastAccessed = now;
+            this.hits.increment();
+        }
+        return session.controller;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.lastAccessed > this.timeToLive;
+    }
+
+    /**
+     * Evicts the sessions that have expired, then the least recently used
+     * sessions while there are too many. If another thread is already
+     * evicting, this does nothing.
+     */
+    public void evictIdleSessions() {
+        if (!this.evicting.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            long now = this.clock.getAsLong();
+            for (Map.Entry<String, Session> entry : this.sessions.entrySet()) {
+                if (isExpired(entry.getValue(), now) && this.sessions.remove(entry.getKey(), entry.getValue())) {
+                    evicted(entry.getKey());
+                }
+            }
+
+            while (this.sessions.size() > this.maxSessions) {
+                Map.Entry<String, Session> leastRecentlyUsed = null;
+                for (Map.Entry<String, Session> entry : this.sessions.entrySet()) {
+                    if (leastRecentlyUsed == null
+                            || entry.getValue().lastAccessed < leastRecentlyUsed.getValue().lastAccessed) {
+                        leastRecentlyUsed = entry;
+                    }
+                }
+                if (leastRecentlyUsed != null
+                        && this.sessions.remove(leastRecentlyUsed.getKey(), leastRecentlyUsed.getValue())) {
+                    evicted(leastRecentlyUsed.getKey());
+                }
+            }
+        } finally {
+            this.evicting.set(false);
+        }
+    }
+
+    private void evicted(String sessionId) {
+        this.evictions.increment();
+        this.evictionListener.accept(sessionId);
+    }
+
+    public int getNumSessions() {
+        return this.sessions.size();
+    }
+
+    /**
+     * Gets the number of lookups that found their session
+     *
+     * @return number of hits
+     */
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Gets the number of lookups that had to create a session
+     *
+     * @return number of misses
+     */
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+}
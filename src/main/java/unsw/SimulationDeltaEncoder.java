@@ -0,0 +1,99 @@
+package unsw;
+
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.FileInfoResponse;
+import unsw.response.models.FileProgressResponse;
+import unsw.response.models.SimulationDeltaResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * SimulationDeltaEncoder turns the state of every device and satellite after
+ * each minute into frames to send. The first frame is the whole state, and
+ * every frame after it only has the devices and satellites that changed since
+ * the frame before. Devices, satellites and files that were not in the frame
+ * before are sent in full. After that, files in transfer only have their
+ * progress as byte counts, and are sent in full again once they complete.
+ */
+public class SimulationDeltaEncoder {
+    private Map<String, EntityInfoResponse> previous = null;
+
+    /**
+     * Gets the frame for the given state
+     *
+     * @param current state of every device and satellite, by id
+     * @return the given state if it is the first frame, otherwise a
+     *         SimulationDeltaResponse with what changed
+     */
+    public Object encode(Map<String, EntityInfoResponse> current) {
+        Map<String, EntityInfoResponse> previous = this.previous;
+        this.previous = current;
+        if (previous == null) {
+            return current;
+        }
+
+        Map<String, EntityInfoResponse> added = new HashMap<>();
+        Map<String, EntityDeltaResponse> changed = new HashMap<>();
+        current.forEach((id, entity) -> {
+            EntityInfoResponse before = previous.get(id);
+            if (before == null) {
+                added.put(id, entity);
+                return;
+            }
+
+            EntityDeltaResponse delta = getDelta(before, entity);
+            if (delta != null) {
+                changed.put(id, delta);
+            }
+        });
+
+        List<String> removed = new ArrayList<>();
+        for (String id : previous.keySet()) {
+            if (!current.containsKey(id)) {
+                removed.add(id);
+            }
+        }
+        return new SimulationDeltaResponse(added, changed, removed);
+    }
+
+    private static EntityDeltaResponse getDelta(EntityInfoResponse before, EntityInfoResponse after) {
+        Map<String, FileInfoResponse> filesBefore = before.getFiles();
+
+        Map<String, FileInfoResponse> addedFiles = new HashMap<>();
+        Map<String, FileProgressResponse> files = new HashMap<>();
+        after.getFiles().forEach((fileName, file) -> {
+            FileInfoResponse fileBefore = filesBefore.get(fileName);
+            if (Objects.equals(fileBefore, file)) {
+                return;
+            }
+
+            if (fileBefore == null || file.hasTransferCompleted()) {
+                addedFiles.put(fileName, file);
+            } else {
+                files.put(fileName, new FileProgressResponse(file.getFilename(), file.getData().length(),
+                        file.getFileSize(), file.hasTransferCompleted()));
+            }
+        });
+
+        List<String> removedFiles = new ArrayList<>();
+        for (String fileName : filesBefore.keySet()) {
+            if (!after.getFiles().containsKey(fileName)) {
+                removedFiles.add(fileName);
+            }
+        }
+
+        // Positions are compared exactly, unlike EntityInfoResponse.equals
+        boolean moved = before.getPosition().toRadians() != after.getPosition().toRadians()
+                || before.getHeight() != after.getHeight();
+        if (!moved && addedFiles.isEmpty() && files.isEmpty() && removedFiles.isEmpty()) {
+            return null;
+        }
+        return new EntityDeltaResponse(after.getDeviceId(), after.getPosition(), after.getHeight(), after.getType(),
+                addedFiles, files, removedFiles);
+    }
+}
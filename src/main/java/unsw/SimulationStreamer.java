@@ -0,0 +1,76 @@
+package unsw;
+
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * SimulationStreamer simulates a session one tick at a time and writes the
+ * frame of each tick as its own line of JSON. The controller is only locked
+ * while a tick is simulated and its frame is serialized with a JsonWriter into
+ * a buffer that is reused for every frame. The buffer is written to the client
+ * after the lock is released, so a slow client never holds up other requests
+ * for the same session.
+ */
+public class SimulationStreamer {
+    private final Gson gson;
+    private final Function<BlackoutController, Map<String, EntityInfoResponse>> getState;
+
+    /**
+     * Creates a simulation streamer
+     *
+     * @param gson     turns frames into JSON
+     * @param getState gets the state of every device and satellite of a
+     *                 controller, by id
+     */
+    public SimulationStreamer(Gson gson, Function<BlackoutController, Map<String, EntityInfoResponse>> getState) {
+        this.gson = gson;
+        this.getState = getState;
+    }
+
+    /**
+     * Simulates the given number of ticks, writing and flushing each frame as
+     * soon as it is serialized
+     *
+     * @param controller controller to simulate
+     * @param numTicks   number of ticks to simulate
+     * @param delta      whether frames after the first only have what changed
+     * @param onTick     given the state after each tick, while the controller
+     *                   is still locked
+     * @param out        where frames are written
+     * @throws IOException if a frame could not be written, e.g. the client
+     *                     disconnected
+     */
+    public void stream(BlackoutController controller, int numTicks, boolean delta,
+            Consumer<Map<String, EntityInfoResponse>> onTick, Writer out) throws IOException {
+        SimulationDeltaEncoder encoder = new SimulationDeltaEncoder();
+        CharArrayWriter buffer = new CharArrayWriter();
+        for (int i = 0; i < numTicks; i++) {
+            buffer.reset();
+            synchronized (controller) {
+                controller.simulate();
+
+                Map<String, EntityInfoResponse> result = this.getState.apply(controller);
+                onTick.accept(result);
+                Object frame = delta ? encoder.encode(result) : result;
+                JsonWriter writer = new JsonWriter(buffer);
+                this.gson.toJson(frame, frame.getClass(), writer);
+                writer.flush();
+            }
+
+            buffer.writeTo(out);
+            out.write('\n');
+            // Flushing without a content length sends the frame as a chunk
+            out.flush();
+        }
+    }
+}
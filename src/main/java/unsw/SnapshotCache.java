@@ -0,0 +1,199 @@
+package unsw;
+
+import unsw.blackout.BlackoutController;
+
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * SnapshotCache keeps the serialized response of each request until the state
+ * of its controller changes. Requests for the same key and state version share
+ * one serialization, even when they arrive at the same time, and every cached
+ * response has an ETag so clients can ask whether it has changed.
+ * 
+ * Snapshots only hold weak references to their controllers, so a cached
+ * response never keeps the controller of an evicted session alive. Once there
+ * are too many snapshots, the least recently used one is evicted.
+ */
+public class SnapshotCache {
+    private final Function<Object, String> serializer;
+    // In access order, so the least recently used snapshot comes first
+    private final LinkedHashMap<String, Snapshot> snapshots;
+    // ETags come from one counter, so they are never reused by another
+    // controller or state version
+    private final AtomicLong nextTag = new AtomicLong(0);
+
+    /**
+     * Snapshot is a response serialized from one state version of a
+     * controller.
+     */
+    public static class Snapshot {
+        private final String sessionId;
+        private final WeakReference<BlackoutController> controller;
+        private final long stateVersion;
+        private final String eTag;
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+
+        private Snapshot(String sessionId, BlackoutController controller, long stateVersion, String eTag) {
+            this.sessionId = sessionId;
+            this.controller = new WeakReference<>(controller);
+            this.stateVersion = stateVersion;
+            this.eTag = eTag;
+        }
+
+        public String getETag() {
+            return this.eTag;
+        }
+
+        /**
+         * Checks whether an If-None-Match header matches the snapshot, as in
+         * RFC 7232. The header is either "*" or a list of entity tags, which
+         * are compared weakly, so a weak tag W/"N" matches the ETag "N".
+         *
+         * @param ifNoneMatch value of the header, null if there was none
+         * @return whether the client already has the snapshot
+         */
+        public boolean matches(String ifNoneMatch) {
+            if (ifNoneMatch == null) {
+                return false;
+            }
+            if (ifNoneMatch.trim().equals("*")) {
+                return true;
+            }
+
+            int i = 0;
+            while (i < ifNoneMatch.length()) {
+                char c = ifNoneMatch.charAt(i);
+                if (c == ',' || c == ' ' || c == '\t') {
+                    i++;
+                    continue;
+                }
+                if (ifNoneMatch.startsWith("W/", i)) {
+                    i += 2;
+                }
+
+                // The opaque tag is quoted and may itself contain commas
+                int end = i < ifNoneMatch.length() && ifNoneMatch.charAt(i) == '"' ? ifNoneMatch.indexOf('"', i + 1)
+                        : -1;
+                if (end < 0) {
+                    // Skips an entry that is not an entity tag
+                    end = ifNoneMatch.indexOf(',', i);
+                    i = end < 0 ? ifNoneMatch.length() : end;
+                    continue;
+                }
+                if (ifNoneMatch.regionMatches(i, this.eTag, 0, this.eTag.length())
+                        && end + 1 == i + this.eTag.length()) {
+                    return true;
+                }
+                i = end + 1;
+            }
+            return false;
+        }
+
+        /**
+         * Gets the serialized response, waiting for it if another request is
+         * still serializing it
+         *
+         * @return the response as UTF-8 JSON
+         */
+        public byte[] getBody() {
+            try {
+                return this.body.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Creates a snapshot cache
+     *
+     * @param serializer turns a response into JSON
+     * @param maxEntries most responses kept at once
+     */
+    public SnapshotCache(Function<Object, String> serializer, int maxEntries) {
+        this.serializer = serializer;
+        this.snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Snapshot> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets the snapshot for the given key and the current state of the
+     * session's controller. If it is not cached, the response is worked out
+     * while the controller is locked, and serialized after it is unlocked.
+     *
+     * @param sessionId  session the controller belongs to
+     * @param key        what is being requested, e.g. the path and query
+     * @param controller controller the response comes from
+     * @param getResult  works out the response from the controller
+     * @return the snapshot, whose body may still be being serialized
+     */
+    public Snapshot get(String sessionId, String key, BlackoutController controller, Supplier<Object> getResult) {
+        key = sessionId + " " + key;
+        Snapshot created;
+        Object result;
+        synchronized (controller) {
+            long stateVersion = controller.getStateVersion();
+            Snapshot cached;
+            synchronized (this.snapshots) {
+                cached = this.snapshots.get(key);
+            }
+            if (cached != null && cached.controller.get() == controller && cached.stateVersion == stateVersion) {
+                return cached;
+            }
+
+            created = new Snapshot(sessionId, controller, stateVersion, "\"" + this.nextTag.incrementAndGet() + "\"");
+            try {
+                result = getResult.get();
+            } catch (RuntimeException e) {
+                created.body.completeExceptionally(e);
+                throw e;
+            }
+            synchronized (this.snapshots) {
+                this.snapshots.put(key, created);
+            }
+        }
+
+        try {
+            created.body.complete(this.serializer.apply(result).getBytes(StandardCharsets.UTF_8));
+        } catch (RuntimeException e) {
+            synchronized (this.snapshots) {
+                this.snapshots.remove(key, created);
+            }
+            created.body.completeExceptionally(e);
+            throw e;
+        }
+        return created;
+    }
+
+    /**
+     * Drops every snapshot of the given session, e.g. once it is evicted
+     *
+     * @param sessionId
+     */
+    public void removeSession(String sessionId) {
+        synchronized (this.snapshots) {
+            this.snapshots.values().removeIf(snapshot -> snapshot.sessionId.equals(sessionId));
+        }
+    }
+
+    public int getNumSnapshots() {
+        synchronized (this.snapshots) {
+            return this.snapshots.size();
+        }
+    }
+}
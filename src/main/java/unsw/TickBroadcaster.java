@@ -0,0 +1,170 @@
+package unsw;
+
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * TickBroadcaster pushes the state of a session to everyone subscribed to it
+ * as Server-Sent Events. A new subscriber is first sent the whole state, and
+ * after every tick all subscribers of the session are sent the same delta, so
+ * each tick is only serialized once no matter how many subscribers there are.
+ */
+public class TickBroadcaster {
+    private final Function<Object, String> serializer;
+    private final int maxQueuedEvents;
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+
+    private static class Channel {
+        private final SimulationDeltaEncoder encoder = new SimulationDeltaEncoder();
+        private final List<Subscriber> subscribers = new ArrayList<>();
+    }
+
+    /**
+     * Subscriber is the queue of events waiting to be written to one client.
+     * A subscriber that falls too far behind is closed, since later deltas
+     * can't be applied without the ones it missed.
+     */
+    public static class Subscriber {
+        private final BlockingQueue<String> events;
+        private volatile boolean closed = false;
+
+        private Subscriber(int maxQueuedEvents) {
+            this.events = new LinkedBlockingQueue<>(maxQueuedEvents);
+        }
+
+        private void send(String event) {
+            if (!this.events.offer(event)) {
+                this.closed = true;
+            }
+        }
+
+        /**
+         * Waits for the next event to write
+         *
+         * @param timeout longest time to wait
+         * @param unit    unit of the timeout
+         * @return the event, or null if there was none in time
+         * @throws InterruptedException
+         */
+        public String nextEvent(long timeout, TimeUnit unit) throws InterruptedException {
+            return this.events.poll(timeout, unit);
+        }
+
+        public boolean isClosed() {
+            return this.closed;
+        }
+    }
+
+    /**
+     * Creates a tick broadcaster
+     *
+     * @param serializer      turns a frame into JSON
+     * @param maxQueuedEvents most events a subscriber can have waiting before
+     *                        it is closed
+     */
+    public TickBroadcaster(Function<Object, String> serializer, int maxQueuedEvents) {
+        this.serializer = serializer;
+        this.maxQueuedEvents = maxQueuedEvents;
+    }
+
+    private static String toEvent(String name, String data) {
+        return "event: " + name + "\ndata: " + data + "\n\n";
+    }
+
+    /**
+     * Subscribes to a session. Has to be called while the session's controller
+     * is locked, so that the given state is its current state.
+     *
+     * @param sessionId
+     * @param current   state of every device and satellite, by id
+     * @return the new subscriber, with the whole state as its first event
+     */
+    public Subscriber subscribe(String sessionId, Map<String, EntityInfoResponse> current) {
+        Subscriber subscriber = new Subscriber(this.maxQueuedEvents);
+        this.channels.compute(sessionId, (id, channel) -> {
+            if (channel == null) {
+                channel = new Channel();
+            }
+            synchronized (channel) {
+                // Existing subscribers are brought up to the same state the new one
+                // starts from, so the next delta applies to all of them
+                Object frame = channel.encoder.encode(current);
+                if (!channel.subscribers.isEmpty() && !isEmpty(frame)) {
+                    broadcast(channel, frame);
+                }
+                subscriber.send(toEvent("state", this.serializer.apply(current)));
+                channel.subscribers.add(subscriber);
+            }
+            return channel;
+        });
+        return subscriber;
+    }
+
+    /**
+     * Unsubscribes from a session, dropping the session's channel once it has
+     * no subscribers left
+     *
+     * @param sessionId
+     * @param subscriber
+     */
+    public void unsubscribe(String sessionId, Subscriber subscriber) {
+        subscriber.closed = true;
+        this.channels.computeIfPresent(sessionId, (id, channel) -> {
+            synchronized (channel) {
+                channel.subscribers.remove(subscriber);
+                return channel.subscribers.isEmpty() ? null : channel;
+            }
+        });
+    }
+
+    /**
+     * Sends the changes since the last event to every subscriber of the
+     * session. Has to be called while the session's controller is locked.
+     *
+     * @param sessionId
+     * @param current   state of every device and satellite after the tick, by
+     *                  id
+     */
+    public void publish(String sessionId, Map<String, EntityInfoResponse> current) {
+        Channel channel = this.channels.get(sessionId);
+        if (channel == null) {
+            return;
+        }
+        synchronized (channel) {
+            if (!channel.subscribers.isEmpty()) {
+                broadcast(channel, channel.encoder.encode(current));
+            }
+        }
+    }
+
+    private static boolean isEmpty(Object frame) {
+        return frame instanceof SimulationDeltaResponse && ((SimulationDeltaResponse) frame).getChanged().isEmpty()
+                && ((SimulationDeltaResponse) frame).getRemoved().isEmpty();
+    }
+
+    private void broadcast(Channel channel, Object frame) {
+        String event = toEvent("delta", this.serializer.apply(frame));
+        for (Subscriber subscriber : channel.subscribers) {
+            subscriber.send(event);
+        }
+    }
+
+    public int getNumSubscribers(String sessionId) {
+        Channel channel = this.channels.get(sessionId);
+        if (channel == null) {
+            return 0;
+        }
+        synchronized (channel) {
+            return channel.subscribers.size();
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package unsw.blackout;
+
+import unsw.blackout.FileTransferException.VirtualFileNoBandwidthException;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * AdmissionQueue holds files that could not be sent because the sender or
+ * reciever had no bandwidth left. Each blackout object has its own queue of
+ * files waiting for its bandwidth, which are started in the order they were
+ * sent once there is bandwidth again. It also keeps track of how many files
+ * are waiting and how long they waited.
+ */
+public class AdmissionQueue {
+    private LinkedHashMap<String, ArrayDeque<PendingTransfer>> queues = new LinkedHashMap<>();
+    private int depth = 0;
+    private long numAdmitted = 0;
+    private long numDropped = 0;
+    private long totalWaitMinutes = 0;
+    private long maxWaitMinutes = 0;
+
+    private static class PendingTransfer {
+        private String fileName;
+        private String fromId;
+        private String toId;
+        private long queuedMinute;
+
+        private PendingTransfer(String fileName, String fromId, String toId, long queuedMinute) {
+            this.fileName = fileName;
+            this.fromId = fromId;
+            this.toId = toId;
+            this.queuedMinute = queuedMinute;
+        }
+    }
+
+    /**
+     * Starts a file transfer, the same as sending the file
+     */
+    public interface TransferStarter {
+        void start(String fileName, String fromId, String toId) throws FileTransferException;
+    }
+
+    /**
+     * Adds a file to the queue of the blackout object whose bandwidth it is
+     * waiting for
+     *
+     * @param id       of the blackout object without bandwidth
+     * @param fileName
+     * @param fromId
+     * @param toId
+     * @param minute   current minute
+     */
+    public void add(String id, String fileName, String fromId, String toId, long minute) {
+        this.queues.computeIfAbsent(id, k -> new ArrayDeque<>())
+                .add(new PendingTransfer(fileName, fromId, toId, minute));
+        this.depth++;
+    }
+
+    /**
+     * Checks whether a file is already waiting to be sent to the given
+     * reciever
+     *
+     * @param fileName
+     * @param toId
+     * @return whether the file is waiting
+     */
+    public boolean contains(String fileName, String toId) {
+        return this.queues.values().stream().flatMap(ArrayDeque::stream)
+                .anyMatch(pending -> pending.fileName.equals(fileName) && pending.toId.equals(toId));
+    }
+
+    /**
+     * Starts the waiting files of every queue in order until one does not have
+     * the queue's bandwidth yet. A file that is instead waiting on the other
+     * end of its transfer stays where it is without holding up the files
+     * behind it. Files that can no longer be sent for another reason, e.g.
+     * they went out of range, are dropped.
+     *
+     * @param minute  current minute
+     * @param starter starts a file transfer
+     */
+    public void admitWaiting(long minute, TransferStarter starter) {
+        Iterator<Map.Entry<String, ArrayDeque<PendingTransfer>>> iterator = this.queues.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ArrayDeque<PendingTransfer>> entry = iterator.next();
+            Iterator<PendingTransfer> queue = entry.getValue().iterator();
+            while (queue.hasNext()) {
+                PendingTransfer pending = queue.next();
+                try {
+                    starter.start(pending.fileName, pending.fromId, pending.toId);
+                    long waitMinutes = minute - pending.queuedMinute;
+                    this.numAdmitted++;
+                    this.totalWaitMinutes += waitMinutes;
+                    this.maxWaitMinutes = Math.max(this.maxWaitMinutes, waitMinutes);
+                } catch (VirtualFileNoBandwidthException e) {
+                    if (e.getId().equals(entry.getKey())) {
+                        break;
+                    }
+                    continue;
+                } catch (FileTransferException e) {
+                    this.numDropped++;
+                }
+                queue.remove();
+                this.depth--;
+            }
+
+            if (entry.getValue().isEmpty()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of files waiting
+     *
+     * @return number of files waiting
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets the number of files waiting for the bandwidth of each blackout
+     * object that has any
+     *
+     * @return number of files waiting by blackout object id
+     */
+    public HashMap<String, Integer> getDepthById() {
+        HashMap<String, Integer> depthById = new HashMap<>();
+        this.queues.forEach((id, queue) -> depthById.put(id, queue.size()));
+        return depthById;
+    }
+
+    /**
+     * Gets the number of minutes the file that has been waiting the longest
+     * has waited for so far
+     *
+     * @param minute current minute
+     * @return minutes waited, 0 if no files are waiting
+     */
+    public long getOldestWaitMinutes(long minute) {
+        return this.queues.values().stream().mapToLong(queue -> minute - queue.peek().queuedMinute).max()
+                .orElse(0);
+    }
+
+    public long getNumAdmitted() {
+        return this.numAdmitted;
+    }
+
+    public long getNumDropped() {
+        return this.numDropped;
+    }
+
+    /**
+     * Gets the average number of minutes started files waited for
+     *
+     * @return average minutes waited, 0 if no files have been started
+     */
+    public double getAverageWaitMinutes() {
+        if (this.numAdmitted == 0) {
+            return 0;
+        }
+        return (double) this.totalWaitMinutes / this.numAdmitted;
+    }
+
+    public long getMaxWaitMinutes() {
+        return this.maxWaitMinutes;
+    }
+}
@@ -1,11 +1,24 @@
 package unsw.blackout;
 
+import unsw.response.models.AdmissionQueueResponse;
+import unsw.response.models.DeliveryResponse;
 import unsw.response.models.EntityInfoResponse;
 import unsw.response.models.FileInfoResponse;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import unsw.blackout.FileTransferException.VirtualFileAlreadyExistsException;
@@ -16,10 +29,15 @@ import unsw.blackout.FileTransferException.VirtualFileNotFoundException;
 import unsw.utils.Angle;
 import unsw.utils.DeviceFactory;
 import unsw.utils.SatelliteFactory;
+import unsw.utils.SimulationClock;
 import unsw.entities.BlackoutObject;
+import unsw.entities.EntityStore;
+import unsw.entities.filemanagement.BlobStore;
 import unsw.entities.filemanagement.FileInTransfer;
 import unsw.entities.filemanagement.FileInfo;
 import unsw.entities.filemanagement.FileStorage;
+import unsw.entities.filemanagement.MulticastUpload;
+import unsw.entities.filemanagement.StripedTransfer;
 import unsw.entities.other.BandwidthControl;
 import unsw.entities.other.Slope;
 
@@ -30,27 +48,65 @@ import unsw.entities.other.Slope;
  * and satellites.
  */
 public class BlackoutController {
+    private static final int DEFAULT_SPATIAL_INDEX_THRESHOLD = 64;
+    // Most delivered or failed deliveries kept for getDeliveryInfo
+    private static final int MAX_FINISHED_DELIVERIES = 100;
 
     private HashMap<String, BlackoutObject> blackoutObjects = new HashMap<String, BlackoutObject>();
-    private List<FileInTransfer> filesInTransfer = new ArrayList<FileInTransfer>();
+    // Positions, heights, speeds, ranges and supported types of blackoutObjects
+    private EntityStore entityStore = new EntityStore();
+    private LinkedHashSet<FileInTransfer> filesInTransfer = new LinkedHashSet<FileInTransfer>();
+    // Files in transfer without a transfer rate, which are done every minute
+    private LinkedHashSet<FileInTransfer> waitingTransfers = new LinkedHashSet<FileInTransfer>();
+    private HashMap<String, LinkedHashSet<FileInTransfer>> transfersByEndpoint = new HashMap<>();
+    private CompletionScheduler completionScheduler = new CompletionScheduler();
+    private SimulationClock clock = new SimulationClock();
+    private long numTransfersStarted = 0;
     private List<Slope> slopes = new ArrayList<Slope>();
+    private BlobStore blobStore = new BlobStore();
+    private CommunicationGraph communicationGraph = null;
+    private int spatialIndexThreshold = DEFAULT_SPATIAL_INDEX_THRESHOLD;
+    private ForkJoinPool movementPool = null;
+    private int parallelMovementThreshold = 0;
+    private boolean fairBandwidthAllocation = false;
+    // Whether the set of files in transfer changed since the fair transfer
+    // rates were last worked out
+    private boolean fairRatesOutdated = false;
+    private boolean resumableTransfers = false;
+    private int partialTransferExpiry = 0;
+    // Files in transfer that went out of range, kept until the minute they expire
+    private LinkedHashMap<FileInTransfer, Long> partialTransfers = new LinkedHashMap<FileInTransfer, Long>();
+    // Files waiting for bandwidth, null if files without bandwidth are not queued
+    private AdmissionQueue admissionQueue = null;
+    private List<StripedTransfer> stripedTransfers = new ArrayList<StripedTransfer>();
+    private List<Delivery> deliveries = new ArrayList<Delivery>();
+    private int deliveryExpiry = -1;
+    // Goes up whenever anything that can be observed may have changed
+    private long stateVersion = 0;
 
     public void createDevice(String deviceId, String type, Angle position) {
+        this.stateVersion++;
         DeviceFactory deviceFactory = new DeviceFactory();
-        this.blackoutObjects.put(deviceId, deviceFactory.createNewDevice(deviceId, position, type));
+        blackoutObjectRemoved(this.blackoutObjects.put(deviceId, deviceFactory.createNewDevice(deviceId, position, type)));
+        blackoutObjectAdded(deviceId);
     }
 
     public void removeDevice(String deviceId) {
-        this.blackoutObjects.remove(deviceId);
+        this.stateVersion++;
+        blackoutObjectRemoved(this.blackoutObjects.remove(deviceId));
     }
 
     public void createSatellite(String satelliteId, String type, double height, Angle position) {
+        this.stateVersion++;
         SatelliteFactory satelliteFactory = new SatelliteFactory();
-        this.blackoutObjects.put(satelliteId, satelliteFactory.createNewSatellite(satelliteId, position, height, type));
+        blackoutObjectRemoved(
+                this.blackoutObjects.put(satelliteId, satelliteFactory.createNewSatellite(satelliteId, position, height, type)));
+        blackoutObjectAdded(satelliteId);
     }
 
     public void removeSatellite(String satelliteId) {
-        this.blackoutObjects.remove(satelliteId);
+        this.stateVersion++;
+        blackoutObjectRemoved(this.blackoutObjects.remove(satelliteId));
     }
 
     public List<String> listDeviceIds() {
@@ -62,6 +118,7 @@ public class BlackoutController {
     }
 
     public void addFileToDevice(String deviceId, String filename, String content) {
+        this.stateVersion++;
         BlackoutObject device = this.blackoutObjects.get(deviceId);
         FileStorage deviceFileStorage = device.getFileStorage();
         deviceFileStorage.addFile(new FileInfo(filename, content, content.length(), false));
@@ -83,13 +140,21 @@ public class BlackoutController {
      * file transfer.
      */
     public void simulate() {
+        this.stateVersion++;
+        this.clock.advance(1);
+
         List<Slope> increasingSlopes = this.slopes.stream().filter(Slope::isSlopeIncreasing)
                 .collect(Collectors.toList());
 
-        for (BlackoutObject blackoutObject : this.blackoutObjects.values()) {
-            Angle oldPosition = blackoutObject.getPosition();
+        List<BlackoutObject> movingObjects = new ArrayList<BlackoutObject>(this.blackoutObjects.values());
+        Angle[] oldPositions = moveAll(movingObjects, 1);
 
-            blackoutObject.doMove();
+        // Slopes are checked one at a time since they keep track of devices on them
+        Set<String> moved = new HashSet<String>();
+        for (int i = 0; i < movingObjects.size(); i++) {
+            BlackoutObject blackoutObject = movingObjects.get(i);
+            Angle oldPosition = oldPositions[i];
+            double oldHeight = blackoutObject.getHeight();
 
             for (Slope slope : increasingSlopes) {
                 // is device on slope
@@ -106,55 +171,502 @@ public class BlackoutController {
                 }
 
             }
+
+            if (blackoutObject.getPosition().compareTo(oldPosition) != 0 || blackoutObject.getHeight() != oldHeight) {
+                moved.add(blackoutObject.getId());
+            }
+        }
+
+        // Everything has moved, so links are only checked once for this tick
+        getCommunicationGraph().update(moved);
+
+        FairBandwidthAllocator.Allocation fairRates = doFileTransfers();
+        doStripedTransfers(fairRates);
+
+        // Update download and upload values
+        for (BlackoutObject blackoutObject : this.blackoutObjects.values()) {
+            BandwidthControl bc = blackoutObject.getBandwidthControl();
+            if (bc != null) {
+                bc.correctUploadDownloadValues();
+            }
+        }
+
+        // Bandwidth freed this minute goes to files waiting for it
+        if (this.admissionQueue != null) {
+            this.admissionQueue.admitWaiting(this.clock.getMinute(), this::startFileTransfer);
+        }
+        for (Delivery delivery : this.deliveries) {
+            if (delivery.isPending()) {
+                advanceDelivery(delivery);
+            }
+        }
+        pruneDeliveries();
+    }
+
+    /**
+     * Does the file transfers for the current minute. Only the files in
+     * transfer without a transfer rate, predicted to complete this minute or
+     * whose sender or reciever may have come into or gone out of range are
+     * done, in the order they were sent. The others keep transferring on
+     * their own. With fair bandwidth allocation every file in transfer is done
+     * since its transfer rate may change.
+     * 
+     * @return fair transfer rates for this minute, including those of the
+     *         senders of striped transfers, empty without fair bandwidth
+     *         allocation
+     */
+    private FairBandwidthAllocator.Allocation doFileTransfers() {
+        long minute = this.clock.getMinute();
+        CommunicationGraph communicationGraph = getCommunicationGraph();
+        retryPartialTransfers(communicationGraph);
+
+        FairBandwidthAllocator.Allocation fairRates = new FairBandwidthAllocator.Allocation();
+        if (this.fairBandwidthAllocation) {
+            List<FileInTransfer> inRange = this.filesInTransfer.stream()
+                    .filter(fit -> communicationGraph.isInRange(fit.getSender().getId(), fit.getReciever().getId()))
+                    .collect(Collectors.toList());
+            LinkedHashMap<StripedTransfer, List<BlackoutObject>> stripeSenders = new LinkedHashMap<>();
+            for (StripedTransfer stripedTransfer : this.stripedTransfers) {
+                stripeSenders.put(stripedTransfer, stripedTransfer.getSenders().stream()
+                        .filter(sender -> canSendStripes(sender, stripedTransfer.getReciever(), communicationGraph))
+                        .collect(Collectors.toList()));
+            }
+            fairRates = FairBandwidthAllocator.allocate(inRange, stripeSenders);
+            this.fairRatesOutdated = false;
+        }
+
+        Set<FileInTransfer> queued = new HashSet<FileInTransfer>(this.waitingTransfers);
+        for (FileInTransfer fit : this.completionScheduler.pollDue(minute)) {
+            if (this.filesInTransfer.contains(fit)) {
+                queued.add(fit);
+            }
+        }
+        if (this.fairBandwidthAllocation || communicationGraph.mayHaveChangedAllRanges()) {
+            queued.addAll(this.filesInTransfer);
+        } else {
+            for (String id : communicationGraph.getChangedLinks()) {
+                queued.addAll(this.transfersByEndpoint.getOrDefault(id, new LinkedHashSet<FileInTransfer>()));
+            }
+        }
+        communicationGraph.clearLinkChanges();
+
+        PriorityQueue<FileInTransfer> due = new PriorityQueue<FileInTransfer>(
+                Comparator.comparingLong(FileInTransfer::getSequenceNumber));
+        due.addAll(queued);
+        while (!due.isEmpty()) {
+            FileInTransfer fit = due.poll();
+            fit.pause(minute - 1);
+            if (fairRates.getRate(fit) > 0) {
+                fit.setTransferRate(fairRates.getRate(fit));
+            }
+
+            if (doFileTransfer(fit, communicationGraph, due)) {
+                fit.resume(minute);
+                if (fit.getTransferRate() > 0) {
+                    this.waitingTransfers.remove(fit);
+                    // Fair transfer rates are done every minute anyway
+                    if (!this.fairBandwidthAllocation) {
+                        this.completionScheduler.schedule(fit);
+                    }
+                }
+            } else {
+                fileTransferFinished(fit);
+            }
+        }
+        return fairRates;
+    }
+
+    /**
+     * Does the file transfer for the current minute. The file in transfer
+     * should be paused at the previous minute.
+     * 
+     * @param fit                file in transfer
+     * @param communicationGraph links for the current minute
+     * @param due                files in transfer still to be done this minute
+     * @return whether the file is still in transfer
+     */
+    private boolean doFileTransfer(FileInTransfer fit, CommunicationGraph communicationGraph,
+            PriorityQueue<FileInTransfer> due) {
+        BlackoutObject sender = fit.getSender();
+        BlackoutObject reciever = fit.getReciever();
+
+        BandwidthControl senderBandwidthControl = sender.getBandwidthControl();
+        BandwidthControl receiverBandwidthControl = reciever.getBandwidthControl();
+
+        FileStorage senderFileStorage = reciever.getFileStorage();
+        FileStorage recieverFileStorage = reciever.getFileStorage();
+
+        FileInfo transferFile = fit.getTransferFile();
+        FileInfo originalFile = fit.getOriginalFile();
+
+        if (communicationGraph.isInRange(sender.getId(), reciever.getId())) {
+            // Reciever is in range of sender
+            return !BlackoutHelpers.doFileTransfer(senderBandwidthControl, receiverBandwidthControl, fit);
+        } else if (sender.canTeleport() && sender.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
+            // Sender is downloading file and it teleported, so the transfer file is
+            // instantly downloaded, but "t" bytes are removed from transfer file.
+            transferFile.removeTBytes(originalFile, transferFile.getFileDataSize());
+            BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl, fit);
+        } else if (reciever.canTeleport() && reciever.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
+            // Reciever teleported
+            if (sender.doesOrbit()) {
+                // Sender is satellite so it does the same thing as if it was the reciever
+                transferFile.removeTBytes(originalFile, transferFile.getFileDataSize());
+            } else {
+                // Device is the sender so its file gets all its "t" bytes removed and the
+                // reciever cancels its download.
+                originalFile.removeTBytes(originalFile, 0);
+                senderFileStorage.removeFile(transferFile.getFileName());
+                originalFileChanged(fit, due);
+            }
+
+            BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl, fit);
+        } else {
+            // Reciever is no longer in range of sender
+            if (this.resumableTransfers) {
+                // The partial file is kept so the transfer can continue from it later
+                this.partialTransfers.put(fit, this.clock.getMinute() + this.partialTransferExpiry);
+            } else {
+                recieverFileStorage.removeFile(transferFile.getFileName());
+            }
+            BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl, fit);
         }
+        return false;
+    }
 
-        List<FileInTransfer> stillActiveFITs = new ArrayList<FileInTransfer>();
-        for (FileInTransfer fit : filesInTransfer) {
+    /**
+     * Removes the partial files that expired and continues the partial
+     * transfers whose reciever is back in range of the sender, if there is
+     * enough bandwidth. Continued transfers are done this minute.
+     * 
+     * @param communicationGraph links for the current minute
+     */
+    private void retryPartialTransfers(CommunicationGraph communicationGraph) {
+        long minute = this.clock.getMinute();
+        Iterator<Map.Entry<FileInTransfer, Long>> iterator = this.partialTransfers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<FileInTransfer, Long> partialTransfer = iterator.next();
+            FileInTransfer fit = partialTransfer.getKey();
             BlackoutObject sender = fit.getSender();
             BlackoutObject reciever = fit.getReciever();
 
-            BandwidthControl senderBandwidthControl = sender.getBandwidthControl();
+            if (this.blackoutObjects.get(sender.getId()) != sender
+                    || this.blackoutObjects.get(reciever.getId()) != reciever
+                    || minute >= partialTransfer.getValue()) {
+                reciever.getFileStorage().removePartialFile(fit.getTransferFile().getFileName());
+                iterator.remove();
+            } else if (communicationGraph.isInRange(sender.getId(), reciever.getId())) {
+                try {
+                    continuePartialTransfer(fit);
+                    iterator.remove();
+                } catch (VirtualFileNoBandwidthException e) {
+                    // Tried again next minute
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts transferring a partial file again from where it stopped. If the
+     * original file changed since, the transfer starts over.
+     * 
+     * @param partialTransfer file in transfer that went out of range
+     * @throws VirtualFileNoBandwidthException if either the sender or reciever
+     *                                         does not have enough bandwidth
+     */
+    private void continuePartialTransfer(FileInTransfer partialTransfer) throws VirtualFileNoBandwidthException {
+        reserveBandwidth(partialTransfer.getSender(), partialTransfer.getReciever());
+
+        FileInfo originalFile = partialTransfer.getOriginalFile();
+        FileInfo transferFile = partialTransfer.getTransferFile();
+        if (!originalFile.startsWith(transferFile)) {
+            transferFile.setFileData("");
+        }
+
+        fileTransferStarted(new FileInTransfer(partialTransfer.getSender(), partialTransfer.getReciever(),
+                originalFile, transferFile, this.clock, this.numTransfersStarted++));
+    }
+
+    private FileInTransfer getPartialTransfer(BlackoutObject sender, BlackoutObject reciever, FileInfo originalFile) {
+        for (FileInTransfer fit : this.partialTransfers.keySet()) {
+            if (fit.getSender() == sender && fit.getReciever() == reciever && fit.getOriginalFile() == originalFile) {
+                return fit;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends the stripes of every striped transfer for the current minute. A
+     * sender that is no longer in range of the reciever hands the rest of its
+     * stripes to another sender that is, and the transfer is cancelled if
+     * there is none. Teleporting ends the transfer the same as it ends a file
+     * in transfer.
+     * 
+     * @param fairRates fair transfer rates for this minute
+     */
+    private void doStripedTransfers(FairBandwidthAllocator.Allocation fairRates) {
+        CommunicationGraph communicationGraph = getCommunicationGraph();
+        Iterator<StripedTransfer> iterator = this.stripedTransfers.iterator();
+        while (iterator.hasNext()) {
+            StripedTransfer stripedTransfer = iterator.next();
+            BlackoutObject reciever = stripedTransfer.getReciever();
             BandwidthControl receiverBandwidthControl = reciever.getBandwidthControl();
+            String fileName = stripedTransfer.getTransferFile().getFileName();
+            Predicate<BlackoutObject> canSend = sender -> canSendStripes(sender, reciever, communicationGraph);
+
+            boolean ended = false;
+            for (BlackoutObject sender : stripedTransfer.getSenders()) {
+                BandwidthControl senderBandwidthControl = sender.getBandwidthControl();
+                boolean exists = this.blackoutObjects.get(sender.getId()) == sender
+                        && this.blackoutObjects.get(reciever.getId()) == reciever;
+                if (canSend.test(sender)) {
+                    if (fairRates.getRate(stripedTransfer, sender) > 0) {
+                        stripedTransfer.setTransferRate(sender, fairRates.getRate(stripedTransfer, sender));
+                    }
+                    stripedTransfer.transfer(sender);
+                    if (!stripedTransfer.getSenders().contains(sender)) {
+                        BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl);
+                    }
+                } else if (exists && sender.canTeleport()
+                        && sender.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
+                    // Sender teleported, so the rest of the file is instantly recieved without
+                    // its "t" bytes
+                    stripedTransfer.completeWithoutTBytes();
+                    ended = true;
+                    break;
+                } else if (exists && reciever.canTeleport()
+                        && reciever.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
+                    if (sender.doesOrbit()) {
+                        // Sender is satellite so it does the same thing as if it was the reciever
+                        stripedTransfer.completeWithoutTBytes();
+                    } else {
+                        // Devices are the senders so their files get all their "t" bytes removed and
+                        // the reciever cancels its download.
+                        for (BlackoutObject device : stripedTransfer.getSenders()) {
+                            if (device.doesOrbit()) {
+                                continue;
+                            }
+                            FileInfo originalFile = device.getFileStorage().getFile(fileName);
+                            originalFile.removeTBytes(originalFile, 0);
+                            originalFileChanged(originalFile, Long.MAX_VALUE, new PriorityQueue<FileInTransfer>());
+                        }
+                        reciever.getFileStorage().removeFile(fileName);
+                    }
+                    ended = true;
+                    break;
+                } else {
+                    BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl);
+                    if (!stripedTransfer.reassignStripes(sender, canSend)) {
+                        reciever.getFileStorage().removeFile(fileName);
+                        ended = true;
+                        break;
+                    }
+                }
+            }
+
+            if (ended) {
+                // Senders that had stripes left no longer need their bandwidth
+                for (BlackoutObject sender : stripedTransfer.getSenders()) {
+                    BlackoutHelpers.finishUploadDownload(sender.getBandwidthControl(), receiverBandwidthControl);
+                }
+                iterator.remove();
+                continue;
+            }
+
+            stripedTransfer.reassemble();
+            if (stripedTransfer.isCompleted()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private boolean canSendStripes(BlackoutObject sender, BlackoutObject reciever,
+            CommunicationGraph communicationGraph) {
+        return this.blackoutObjects.get(sender.getId()) == sender
+                && this.blackoutObjects.get(reciever.getId()) == reciever
+                && communicationGraph.isInRange(sender.getId(), reciever.getId());
+    }
 
-            FileStorage senderFileStorage = reciever.getFileStorage();
-            FileStorage recieverFileStorage = reciever.getFileStorage();
+    /**
+     * Other files in transfer of the same original file transfer its new
+     * content from now on. Those done before the given file in transfer this
+     * minute keep what they transferred this minute, and those after it are
+     * done this minute with the new content.
+     * 
+     * @param changed file in transfer whose original file changed
+     * @param due     files in transfer still to be done this minute
+     */
+    private void originalFileChanged(FileInTransfer changed, PriorityQueue<FileInTransfer> due) {
+        originalFileChanged(changed.getOriginalFile(), changed.getSequenceNumber(), due);
+    }
 
-            FileInfo transferFile = fit.getTransferFile();
-            FileInfo originalFile = fit.getOriginalFile();
+    /**
+     * Files in transfer of the original file transfer its new content from now
+     * on
+     * 
+     * @param originalFile   file whose content changed
+     * @param sequenceNumber files in transfer sent before this keep what they
+     *                       transferred this minute, those sent after it are
+     *                       done again this minute
+     * @param due            files in transfer still to be done this minute
+     */
+    private void originalFileChanged(FileInfo originalFile, long sequenceNumber, PriorityQueue<FileInTransfer> due) {
+        long minute = this.clock.getMinute();
+        for (FileInTransfer fit : this.filesInTransfer) {
+            if (fit.getSequenceNumber() == sequenceNumber || fit.getOriginalFile() != originalFile) {
+                continue;
+            }
 
-            if (communicableEntitiesInRange(sender.getId()).contains(reciever.getId())) {
-                // Reciever is in range of sender
-                if (!BlackoutHelpers.doFileTransfer(senderBandwidthControl, receiverBandwidthControl, fit)) {
-                    stillActiveFITs.add(fit);
+            if (fit.getSequenceNumber() < sequenceNumber) {
+                fit.resume(minute);
+                if (fit.getTransferRate() > 0 && !this.fairBandwidthAllocation) {
+                    this.completionScheduler.schedule(fit);
                 }
-            } else if (sender.canTeleport() && sender.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
-                // Sender is downloading file and it teleported, so the transfer file is
-                // instantly downloaded, but "t" bytes are removed from transfer file.
-                transferFile.removeTBytes(originalFile.getFileData(), transferFile.getFileDataSize());
-                BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl);
-            } else if (reciever.canTeleport() && reciever.getPosition().compareTo(Angle.fromDegrees(0)) == 0) {
-                // Reciever teleported
-                if (sender.doesOrbit()) {
-                    // Sender is satellite so it does the same thing as if it was the reciever
-                    transferFile.removeTBytes(originalFile.getFileData(), transferFile.getFileDataSize());
-                } else {
-                    // Device is the sender so its file gets all its "t" bytes removed and the
-                    // reciever cancels its download.
-                    originalFile.removeTBytes(originalFile.getFileData(), 0);
-                    senderFileStorage.removeFile(transferFile.getFileName());
+            } else {
+                fit.resume(minute - 1);
+                if (!due.contains(fit)) {
+                    due.add(fit);
                 }
+            }
+        }
+    }
+
+    private void fileTransferStarted(FileInTransfer fit) {
+        this.fairRatesOutdated = true;
+        this.filesInTransfer.add(fit);
+        this.waitingTransfers.add(fit);
+        for (String id : Arrays.asList(fit.getSender().getId(), fit.getReciever().getId())) {
+            this.transfersByEndpoint.computeIfAbsent(id, k -> new LinkedHashSet<FileInTransfer>()).add(fit);
+        }
+    }
+
+    private void fileTransferFinished(FileInTransfer fit) {
+        this.fairRatesOutdated = true;
+        this.filesInTransfer.remove(fit);
+        this.waitingTransfers.remove(fit);
+        for (String id : Arrays.asList(fit.getSender().getId(), fit.getReciever().getId())) {
+            LinkedHashSet<FileInTransfer> transfers = this.transfersByEndpoint.get(id);
+            transfers.remove(fit);
+            if (transfers.isEmpty()) {
+                this.transfersByEndpoint.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Simulate for the specified number of minutes. If nothing needs to be
+     * checked every minute, the blackout objects jump straight to where they
+     * will be after the given number of minutes.
+     */
+    public void simulate(int numberOfMinutes) {
+        if (canFastForward()) {
+            fastForward(numberOfMinutes);
+            return;
+        }
+
+        for (int i = 0; i < numberOfMinutes; i++) {
+            simulate();
+        }
+    }
+
+    /**
+     * Checks whether simulating minute by minute can be skipped. This is the
+     * case when there are no files in transfer or waiting to be transferred
+     * (so teleports and ranges do not matter) and no moving device could go up
+     * a slope.
+     * 
+     * @return whether the blackout objects can be moved in one step
+     */
+    private boolean canFastForward() {
+        return this.filesInTransfer.isEmpty() && !hasWaitingFiles() && canSkipMinutes();
+    }
+
+    /**
+     * Checks whether there are partial transfers, files waiting for bandwidth,
+     * striped transfers or deliveries, which have to be done every minute
+     * 
+     * @return whether any files are waiting to be transferred
+     */
+    private boolean hasWaitingFiles() {
+        return !this.partialTransfers.isEmpty() || (this.admissionQueue != null && this.admissionQueue.getDepth() > 0)
+                || !this.stripedTransfers.isEmpty() || this.deliveries.stream().anyMatch(Delivery::isPending);
+    }
+
+    /**
+     * Checks whether the height of any blackout object could change while
+     * skipping minutes, i.e. a moving device could go up a slope
+     * 
+     * @return whether heights stay the same
+     */
+    private boolean canSkipMinutes() {
+        if (this.slopes.stream().noneMatch(Slope::isSlopeIncreasing)) {
+            return true;
+        }
 
-                BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl);
+        return this.blackoutObjects.values().stream()
+                .noneMatch(blackoutObject -> !blackoutObject.doesOrbit() && blackoutObject.getLinearSpeed() != 0);
+    }
+
+    /**
+     * Simulate for the specified number of minutes, jumping straight to the
+     * next minute something observable can happen in; a link a file transfer
+     * depends on changes, a transfer completes or a teleporting satellite
+     * teleports. The final state is the same as simulating minute by minute.
+     * 
+     * @param numberOfMinutes
+     */
+    public void simulateEventDriven(int numberOfMinutes) {
+        int minutesLeft = numberOfMinutes;
+        while (minutesLeft > 0) {
+            int minutesWithoutEvents = 0;
+            // Fair transfer rates have to be worked out again after a transfer starts or finishes,
+            // and waiting files are checked every minute
+            if (canSkipMinutes() && !(this.fairBandwidthAllocation && this.fairRatesOutdated)
+                    && !hasWaitingFiles()) {
+                minutesWithoutEvents = EventHorizon.getMinutesWithoutEvents(this.blackoutObjects.values(),
+                        this.filesInTransfer, getCommunicationGraph(), minutesLeft);
+            }
+
+            if (minutesWithoutEvents > 0) {
+                fastForward(minutesWithoutEvents);
+                minutesLeft -= minutesWithoutEvents;
             } else {
-                // Reciever is no longer in range of sender
-                recieverFileStorage.removeFile(transferFile.getFileName());
-                BlackoutHelpers.finishUploadDownload(senderBandwidthControl, receiverBandwidthControl);
+                simulate();
+                minutesLeft--;
+            }
+        }
+    }
+
+    /**
+     * Moves every blackout object and progresses every file in transfer by the
+     * given number of minutes at once. This should only be used when nothing
+     * observable happens in those minutes, i.e. canFastForward is true or
+     * EventHorizon allows it.
+     * 
+     * @param numberOfMinutes
+     */
+    private void fastForward(int numberOfMinutes) {
+        if (numberOfMinutes <= 0) {
+            return;
+        }
+        this.stateVersion++;
+
+        List<BlackoutObject> movingObjects = new ArrayList<BlackoutObject>(this.blackoutObjects.values());
+        Angle[] oldPositions = moveAll(movingObjects, numberOfMinutes);
+
+        Set<String> moved = new HashSet<String>();
+        for (int i = 0; i < movingObjects.size(); i++) {
+            if (movingObjects.get(i).getPosition().compareTo(oldPositions[i]) != 0) {
+                moved.add(movingObjects.get(i).getId());
             }
         }
 
-        filesInTransfer = stillActiveFITs;
+        getCommunicationGraph().update(moved);
+
+        // Files in transfer keep transferring on their own
+        this.clock.advance(numberOfMinutes);
 
-        // Update download and upload values
         for (BlackoutObject blackoutObject : this.blackoutObjects.values()) {
             BandwidthControl bc = blackoutObject.getBandwidthControl();
             if (bc != null) {
@@ -164,25 +676,166 @@ public class BlackoutController {
     }
 
     /**
-     * Simulate for the specified number of minutes.
-     * You shouldn't need to modify this function.
+     * Moves the given blackout objects by the given number of minutes. This is
+     * done on the movement pool if there is one and there are enough blackout
+     * objects, otherwise on the current thread.
+     * 
+     * @param movingObjects blackout objects to move
+     * @param minutes       number of minutes to move for
+     * @return positions of the blackout objects before moving, in the same order
      */
-    public void simulate(int numberOfMinutes) {
-        for (int i = 0; i < numberOfMinutes; i++) {
-            simulate();
+    private Angle[] moveAll(List<BlackoutObject> movingObjects, int minutes) {
+        Angle[] oldPositions = new Angle[movingObjects.size()];
+        MoveTask moveTask = new MoveTask(movingObjects, oldPositions, minutes);
+
+        if (this.movementPool != null && movingObjects.size() >= this.parallelMovementThreshold) {
+            this.movementPool.invoke(moveTask);
+        } else {
+            moveTask.moveRange();
+        }
+        return oldPositions;
+    }
+
+    /**
+     * Moves blackout objects in parallel on the given pool once there are at
+     * least the given number of them. The results are the same as moving them
+     * one at a time.
+     * 
+     * @param movementPool              pool to move blackout objects on, null to
+     *                                  always move them on the calling thread
+     * @param parallelMovementThreshold number of blackout objects at which they
+     *                                  are moved in parallel
+     */
+    public void setParallelMovement(ForkJoinPool movementPool, int parallelMovementThreshold) {
+        this.movementPool = movementPool;
+        this.parallelMovementThreshold = parallelMovementThreshold;
+    }
+
+    /**
+     * Sets whether transfer rates are worked out again every minute so the
+     * bandwidth of every sender and reciever is shared max-min fairly between
+     * the files in transfer in range. Otherwise a file in transfer keeps the
+     * share of bandwidth it was given when it first transferred, even after
+     * other files in transfer finish.
+     * 
+     * @param fairBandwidthAllocation whether to share bandwidth fairly every
+     *                                minute
+     */
+    public void setFairBandwidthAllocation(boolean fairBandwidthAllocation) {
+        this.stateVersion++;
+        if (this.fairBandwidthAllocation && !fairBandwidthAllocation) {
+            // Fair transfer rates were not scheduled since they were done every minute
+            for (FileInTransfer fit : this.filesInTransfer) {
+                if (!this.waitingTransfers.contains(fit)) {
+                    this.completionScheduler.schedule(fit);
+                }
+            }
         }
+        this.fairBandwidthAllocation = fairBandwidthAllocation;
+        this.fairRatesOutdated = true;
+    }
+
+    /**
+     * Sets whether files in transfer that go out of range keep what was
+     * transferred. The partial file stays in the reciever's file storage and
+     * the bandwidth is freed. The transfer continues from where it stopped once
+     * the reciever is back in range, or when the file is sent again. Partial
+     * files that have not continued within the given number of minutes are
+     * removed.
+     * 
+     * @param resumableTransfers    whether to keep partial files
+     * @param partialTransferExpiry minutes a partial file is kept for
+     */
+    public void setResumableTransfers(boolean resumableTransfers, int partialTransferExpiry) {
+        this.stateVersion++;
+        this.resumableTransfers = resumableTransfers;
+        this.partialTransferExpiry = partialTransferExpiry;
+    }
+
+    /**
+     * Sets whether files that cannot be sent because the sender or reciever
+     * has no bandwidth left wait in a queue instead. Waiting files are started
+     * at the end of the minute bandwidth frees up, in the order they were
+     * sent. Turning it off drops the waiting files.
+     * 
+     * @param queueTransfers whether to queue files without bandwidth
+     */
+    public void setAdmissionQueue(boolean queueTransfers) {
+        this.stateVersion++;
+        if (!queueTransfers) {
+            this.admissionQueue = null;
+        } else if (this.admissionQueue == null) {
+            this.admissionQueue = new AdmissionQueue();
+        }
+    }
+
+    /**
+     * Gets how many files are waiting for bandwidth and how long files waited
+     * 
+     * @return information about the admission queue, null if files are not
+     *         queued
+     */
+    public AdmissionQueueResponse getAdmissionQueueInfo() {
+        if (this.admissionQueue == null) {
+            return null;
+        }
+
+        return new AdmissionQueueResponse(this.admissionQueue.getDepth(), this.admissionQueue.getDepthById(),
+                this.admissionQueue.getOldestWaitMinutes(this.clock.getMinute()),
+                this.admissionQueue.getNumAdmitted(), this.admissionQueue.getNumDropped(),
+                this.admissionQueue.getAverageWaitMinutes(), this.admissionQueue.getMaxWaitMinutes());
     }
 
     /**
      * This uses a depth first search to find communicable
-     * entities. To know how it works look in BlackoutHelpers
+     * entities. To know how it works look in CommunicationGraph
      * 
      * @param id
      * @return list of communicable entities
      */
     public List<String> communicableEntitiesInRange(String id) {
-        BlackoutObject source = this.blackoutObjects.get(id);
-        return BlackoutHelpers.dfsFindCommunicables(source, this.blackoutObjects);
+        return getCommunicationGraph().getCommunicables(id);
+    }
+
+    private void blackoutObjectAdded(String id) {
+        BlackoutObject blackoutObject = this.blackoutObjects.get(id);
+        blackoutObject.moveTo(this.entityStore);
+        if (blackoutObject.getFileStorage() != null) {
+            blackoutObject.getFileStorage().setBlobStore(this.blobStore);
+        }
+
+        if (this.communicationGraph != null) {
+            this.communicationGraph.addBlackoutObject(blackoutObject);
+        }
+    }
+
+    private void blackoutObjectRemoved(BlackoutObject blackoutObject) {
+        if (blackoutObject == null) {
+            return;
+        }
+        // Transfers still in progress may look at it, so it keeps its state
+        blackoutObject.detach();
+        if (blackoutObject.getFileStorage() != null) {
+            blackoutObject.getFileStorage().setBlobStore(null);
+        }
+
+        if (this.communicationGraph != null) {
+            this.communicationGraph.removeBlackoutObject(blackoutObject.getId());
+        }
+    }
+
+    /**
+     * Gets the links between blackout objects for their current positions.
+     * The graph is built the first time it is needed and afterwards only
+     * updated for the blackout objects that are created, removed or moved.
+     * 
+     * @return communication graph of the current tick
+     */
+    private CommunicationGraph getCommunicationGraph() {
+        if (this.communicationGraph == null) {
+            this.communicationGraph = new CommunicationGraph(this.blackoutObjects, this.spatialIndexThreshold);
+        }
+        return this.communicationGraph;
     }
 
     /**
@@ -207,19 +860,368 @@ public class BlackoutController {
      * @throws VirtualFileNoBandwidthException    if either the sender does not have
      *                                            enough upload bandwidth or the
      *                                            reciever does not have enought
-     *                                            download bandwidth
+     *                                            download bandwidth, unless the
+     *                                            file is queued until there is
+     *                                            bandwidth
      */
     public void sendFile(String fileName, String fromId, String toId) throws FileTransferException {
-        if (!this.communicableEntitiesInRange(fromId).contains(toId)) {
-            throw new FileTransferException("Not in range");
+        this.stateVersion++;
+        if (this.admissionQueue == null) {
+            startFileTransfer(fileName, fromId, toId);
+            return;
+        }
+
+        if (this.admissionQueue.contains(fileName, toId)) {
+            throw new VirtualFileAlreadyExistsException(fileName);
+        }
+
+        try {
+            startFileTransfer(fileName, fromId, toId);
+        } catch (VirtualFileNoBandwidthException e) {
+            this.admissionQueue.add(e.getId(), fileName, fromId, toId, this.clock.getMinute());
         }
+    }
 
+    private void startFileTransfer(String fileName, String fromId, String toId) throws FileTransferException {
         BlackoutObject sender = this.blackoutObjects.get(fromId);
         BlackoutObject receiver = this.blackoutObjects.get(toId);
 
-        FileStorage senderFileStorage = sender.getFileStorage();
-        FileStorage receiverFileStorage = receiver.getFileStorage();
+        FileInfo originalFile = getFileToSend(fileName, fromId, toId);
+
+        FileInTransfer partialTransfer = getPartialTransfer(sender, receiver, originalFile);
+        if (partialTransfer != null) {
+            continuePartialTransfer(partialTransfer);
+            this.partialTransfers.remove(partialTransfer);
+            return;
+        }
+
+        checkRecieverStorage(originalFile, receiver);
+        reserveBandwidth(sender, receiver);
+        startTransfer(sender, receiver, originalFile);
+    }
+
+    /**
+     * Sends a file from a device/satellite to several devices/satellites at
+     * once. The sender uploads the file once for all of them, and each
+     * reciever downloads it as fast as both the upload and its own download
+     * bandwidth allow. Each reciever still goes out of range or teleports on
+     * its own. Either the file is sent to every reciever or to none of them.
+     * 
+     * @param fileName
+     * @param fromId
+     * @param toIds    ids of the recievers
+     * @throws FileTransferException for the same reasons as sendFile, for any
+     *                               of the recievers
+     */
+    public void sendFileToMany(String fileName, String fromId, List<String> toIds) throws FileTransferException {
+        this.stateVersion++;
+        List<String> recieverIds = new ArrayList<String>(new LinkedHashSet<String>(toIds));
+        if (recieverIds.isEmpty()) {
+            return;
+        }
+
+        BlackoutObject sender = this.blackoutObjects.get(fromId);
+        FileInfo originalFile = null;
+        for (String toId : recieverIds) {
+            originalFile = getFileToSend(fileName, fromId, toId);
+            checkRecieverStorage(originalFile, this.blackoutObjects.get(toId));
+        }
+
+        // One upload for every reciever
+        BandwidthControl senderBandwidthControl = sender.getBandwidthControl();
+        if (senderBandwidthControl != null && !senderBandwidthControl.initiateUpload()) {
+            throw new VirtualFileNoBandwidthException(fromId);
+        }
+
+        List<BandwidthControl> downloads = new ArrayList<BandwidthControl>();
+        for (String toId : recieverIds) {
+            BandwidthControl recieverBandwidthControl = this.blackoutObjects.get(toId).getBandwidthControl();
+            if (recieverBandwidthControl != null && !recieverBandwidthControl.initiateDownload()) {
+                downloads.forEach(BandwidthControl::cancelDownload);
+                if (senderBandwidthControl != null) {
+                    senderBandwidthControl.cancelUpload();
+                }
+                throw new VirtualFileNoBandwidthException(toId);
+            }
+            if (recieverBandwidthControl != null) {
+                downloads.add(recieverBandwidthControl);
+            }
+        }
+
+        MulticastUpload multicastUpload = new MulticastUpload(recieverIds.size());
+        for (String toId : recieverIds) {
+            startTransfer(sender, this.blackoutObjects.get(toId), originalFile).setMulticastUpload(multicastUpload);
+        }
+    }
+
+    /**
+     * Sends a file to a reciever from several senders that all have the same
+     * file, each sending a stripe of it in parallel. Stripes are sized by the
+     * bandwidth each sender has, and the reciever reassembles them into one
+     * file. A sender that goes out of range hands the rest of its stripe to
+     * the fastest other sender.
+     * 
+     * @param fileName
+     * @param fromIds  ids of the senders
+     * @param toId
+     * @throws FileTransferException for the same reasons as sendFile, for any
+     *                               of the senders, or if the senders' files
+     *                               differ
+     */
+    public void sendFileStriped(String fileName, List<String> fromIds, String toId) throws FileTransferException {
+        this.stateVersion++;
+        List<String> senderIds = new ArrayList<String>(new LinkedHashSet<String>(fromIds));
+        if (senderIds.isEmpty()) {
+            return;
+        }
+
+        BlackoutObject receiver = this.blackoutObjects.get(toId);
+        FileInfo originalFile = null;
+        for (String fromId : senderIds) {
+            FileInfo senderFile = getFileToSend(fileName, fromId, toId);
+            if (originalFile == null) {
+                originalFile = senderFile;
+            } else if (!senderFile.getFileData().equals(originalFile.getFileData())) {
+                throw new FileTransferException("Files differ");
+            }
+        }
+        checkRecieverStorage(originalFile, receiver);
+
+        List<BlackoutObject> senders = new ArrayList<BlackoutObject>();
+        for (String fromId : senderIds) {
+            BlackoutObject sender = this.blackoutObjects.get(fromId);
+            try {
+                reserveBandwidth(sender, receiver);
+            } catch (VirtualFileNoBandwidthException e) {
+                for (BlackoutObject reserved : senders) {
+                    BlackoutHelpers.cancelUploadDownload(reserved.getBandwidthControl(),
+                            receiver.getBandwidthControl());
+                }
+                throw e;
+            }
+            senders.add(sender);
+        }
+
+        int[] transferRates = new int[senders.size()];
+        for (int i = 0; i < senders.size(); i++) {
+            transferRates[i] = BlackoutHelpers.getTransferRate(senders.get(i).getBandwidthControl(),
+                    receiver.getBandwidthControl());
+        }
+        String content = originalFile.getFileData();
+        int[] stripeSizes = StripeScheduler.getStripeSizes(content.length(), transferRates);
+
+        FileInfo transferFile = new FileInfo(originalFile.getFileName(), "", originalFile.getFileSize(), true);
+        receiver.getFileStorage().addFile(transferFile);
+
+        StripedTransfer stripedTransfer = new StripedTransfer(receiver, transferFile, content);
+        int start = 0;
+        for (int i = 0; i < senders.size(); i++) {
+            BlackoutObject sender = senders.get(i);
+            if (stripeSizes[i] == 0) {
+                // Not needed, so its bandwidth is freed straight away
+                BlackoutHelpers.cancelUploadDownload(sender.getBandwidthControl(), receiver.getBandwidthControl());
+                continue;
+            }
+
+            stripedTransfer.addSender(sender, transferRates[i]);
+            stripedTransfer.addStripe(sender, start, start + stripeSizes[i]);
+            start += stripeSizes[i];
+        }
+        this.stripedTransfers.add(stripedTransfer);
+    }
+
+    /**
+     * Delivers a file to a destination that may never be in range of the
+     * sender, by storing it on satellites along the way. Every minute the
+     * blackout object holding the file sends it straight to the destination
+     * if it is in range. Otherwise it sends it to the satellite in range that
+     * is predicted to be in contact with the destination soonest, if that is
+     * sooner than the holder itself. Satellites along the way only keep the
+     * file until it has been sent on.
+     * 
+     * @param fileName
+     * @param fromId
+     * @param toId
+     * @throws VirtualFileNotFoundException       if the file is not in the
+     *                                            sender's file storage or is
+     *                                            being downloaded
+     * @throws VirtualFileAlreadyExistsException  if the file already exists in
+     *                                            the destination's file storage
+     * @throws VirtualFileNoStorageSpaceException if the destination does not
+     *                                            have a file storage
+     */
+    public void deliverFile(String fileName, String fromId, String toId) throws FileTransferException {
+        this.stateVersion++;
+        BlackoutObject origin = this.blackoutObjects.get(fromId);
+        BlackoutObject destination = this.blackoutObjects.get(toId);
 
+        FileInfo originalFile = origin.getFileStorage().getFile(fileName);
+        if (originalFile == null || originalFile.isInTransfer()) {
+            throw new VirtualFileNotFoundException(fileName);
+        }
+        if (destination.getFileStorage() == null) {
+            throw new VirtualFileNoStorageSpaceException("Max Files Reached");
+        }
+        if (destination.getFileStorage().fileStorageContainsFile(fileName)) {
+            throw new VirtualFileAlreadyExistsException(fileName);
+        }
+
+        Delivery delivery = new Delivery(fileName, origin, destination, this.clock.getMinute());
+        this.deliveries.add(delivery);
+        advanceDelivery(delivery);
+    }
+
+    /**
+     * Checks on the hop a delivery is currently taking, and once the holder
+     * has the whole file picks the next hop
+     * 
+     * @param delivery pending delivery
+     */
+    private void advanceDelivery(Delivery delivery) {
+        String fileName = delivery.getFileName();
+        BlackoutObject holder = delivery.getHolder();
+        BlackoutObject destination = delivery.getDestination();
+        if (this.blackoutObjects.get(holder.getId()) != holder
+                || this.blackoutObjects.get(destination.getId()) != destination) {
+            failDelivery(delivery);
+            return;
+        }
+
+        BlackoutObject nextHop = delivery.getNextHop();
+        if (nextHop != null) {
+            FileInfo hopFile = nextHop.getFileStorage().getFile(fileName);
+            if (hopFile != null && hopFile.isInTransfer()) {
+                return;
+            }
+            if (hopFile == null) {
+                // The hop went out of range, so the holder tries again
+                delivery.setNextHop(null);
+            } else {
+                delivery.hopCompleted(hopFile.getFileDataSize(), this.clock.getMinute());
+                if (holder != delivery.getOrigin()) {
+                    holder.getFileStorage().removeFile(fileName);
+                }
+                if (delivery.isDelivered()) {
+                    return;
+                }
+                holder = delivery.getHolder();
+            }
+        }
+
+        // Only given up between hops, so no copy is left behind on a hop
+        if (this.deliveryExpiry >= 0
+                && this.clock.getMinute() - delivery.getStartMinute() >= this.deliveryExpiry) {
+            failDelivery(delivery);
+            return;
+        }
+
+        CommunicationGraph communicationGraph = getCommunicationGraph();
+        List<BlackoutObject> candidates = new ArrayList<BlackoutObject>();
+        if (communicationGraph.isInRange(holder.getId(), destination.getId())) {
+            candidates.add(destination);
+        } else {
+            long holderContact = holder.doesOrbit() ? ContactPredictor.getMinutesUntilContact(holder, destination)
+                    : Long.MAX_VALUE;
+            HashMap<BlackoutObject, Long> contacts = new HashMap<BlackoutObject, Long>();
+            for (String id : communicationGraph.getCommunicables(holder.getId())) {
+                BlackoutObject candidate = this.blackoutObjects.get(id);
+                if (!candidate.doesOrbit() || candidate.getFileStorage() == null) {
+                    continue;
+                }
+                long contact = ContactPredictor.getMinutesUntilContact(candidate, destination);
+                if (contact < holderContact) {
+                    candidates.add(candidate);
+                    contacts.put(candidate, contact);
+                }
+            }
+            candidates.sort(Comparator.comparingLong(contacts::get));
+        }
+
+        for (BlackoutObject candidate : candidates) {
+            try {
+                startFileTransfer(fileName, holder.getId(), candidate.getId());
+                delivery.setNextHop(candidate);
+                return;
+            } catch (FileTransferException e) {
+                // Tries the next best hop
+            }
+        }
+    }
+
+    /**
+     * Gives up on a delivery. A satellite along the way that holds the file
+     * removes its copy.
+     * 
+     * @param delivery pending delivery without a hop in progress
+     */
+    private void failDelivery(Delivery delivery) {
+        BlackoutObject holder = delivery.getHolder();
+        if (holder != delivery.getOrigin() && this.blackoutObjects.get(holder.getId()) == holder) {
+            holder.getFileStorage().removeFile(delivery.getFileName());
+        }
+        delivery.fail();
+    }
+
+    /**
+     * Drops the earliest started of the delivered or failed deliveries, so
+     * finished deliveries don't build up
+     */
+    private void pruneDeliveries() {
+        int numFinished = (int) this.deliveries.stream().filter(delivery -> !delivery.isPending()).count();
+        Iterator<Delivery> iterator = this.deliveries.iterator();
+        while (numFinished > MAX_FINISHED_DELIVERIES && iterator.hasNext()) {
+            if (!iterator.next().isPending()) {
+                iterator.remove();
+                numFinished--;
+            }
+        }
+    }
+
+    /**
+     * Sets how long a delivery is tried for. A delivery that has not reached
+     * its destination within the given number of minutes fails once the hop it
+     * is taking, if any, has ended.
+     * 
+     * @param deliveryExpiry minutes a delivery is tried for, -1 to keep trying
+     *                       until it is delivered
+     */
+    public void setDeliveryExpiry(int deliveryExpiry) {
+        this.stateVersion++;
+        this.deliveryExpiry = deliveryExpiry;
+    }
+
+    /**
+     * Gets the progress of every pending delivery and of the most recently
+     * finished ones
+     * 
+     * @return deliveries in the order they were started
+     */
+    public List<DeliveryResponse> getDeliveryInfo() {
+        return this.deliveries.stream()
+                .map(delivery -> new DeliveryResponse(delivery.getFileName(), delivery.getOrigin().getId(),
+                        delivery.getDestination().getId(), delivery.getHolder().getId(), delivery.isDelivered(),
+                        delivery.isFailed(), delivery.getNumHops(), delivery.getBytesMoved(), delivery.getLatency()))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the file to send from the sender, checking it can be sent to the
+     * reciever
+     * 
+     * @param fileName
+     * @param fromId
+     * @param toId
+     * @return original file
+     * @throws FileTransferException if the reciever is not in range
+     * @throws VirtualFileNotFoundException if the file is not in the sender's
+     *                                      file storage or is being downloaded
+     */
+    private FileInfo getFileToSend(String fileName, String fromId, String toId) throws FileTransferException {
+        if (!getCommunicationGraph().isInRange(fromId, toId)) {
+            throw new FileTransferException("Not in range");
+        }
+
+        FileStorage senderFileStorage = this.blackoutObjects.get(fromId).getFileStorage();
         FileInfo originalFile = senderFileStorage.getFile(fileName);
 
         if (originalFile == null) {
@@ -229,6 +1231,23 @@ public class BlackoutController {
         if (originalFile.isInTransfer()) {
             throw new VirtualFileNotFoundException(fileName);
         }
+        return originalFile;
+    }
+
+    /**
+     * Checks the reciever can store the given file
+     * 
+     * @param originalFile file to send
+     * @param receiver
+     * @throws VirtualFileAlreadyExistsException  if the file already exists in
+     *                                            the reciever's file storage
+     * @throws VirtualFileNoStorageSpaceException if the reciever does not have a
+     *                                            file storage or does not have
+     *                                            space for the file
+     */
+    private void checkRecieverStorage(FileInfo originalFile, BlackoutObject receiver) throws FileTransferException {
+        FileStorage receiverFileStorage = receiver.getFileStorage();
+        String fileName = originalFile.getFileName();
 
         if (receiverFileStorage == null) {
             throw new VirtualFileNoStorageSpaceException("Max Files Reached");
@@ -245,39 +1264,96 @@ public class BlackoutController {
         if (receiverFileStorage.willExceedMaxStorageSize(originalFile.getFileSize())) {
             throw new VirtualFileNoStorageSpaceException("Max Storage Reached");
         }
+    }
 
+    /**
+     * Starts transferring the original file to the reciever, once the
+     * bandwidth has been reserved
+     * 
+     * @param sender
+     * @param receiver
+     * @param originalFile file to send
+     * @return the new file in transfer
+     */
+    private FileInTransfer startTransfer(BlackoutObject sender, BlackoutObject receiver, FileInfo originalFile) {
+        FileInfo transferFile = new FileInfo(originalFile.getFileName(), "", originalFile.getFileSize(), true);
+
+        receiver.getFileStorage().addFile(transferFile);
+
+        FileInTransfer fit = new FileInTransfer(sender, receiver, originalFile, transferFile, this.clock,
+                this.numTransfersStarted++);
+        fileTransferStarted(fit);
+        return fit;
+    }
+
+    /**
+     * Initiates an upload for the sender and a download for the reciever
+     * 
+     * @param sender
+     * @param receiver
+     * @throws VirtualFileNoBandwidthException if either the sender does not have
+     *                                         enough upload bandwidth or the
+     *                                         reciever does not have enought
+     *                                         download bandwidth
+     */
+    private void reserveBandwidth(BlackoutObject sender, BlackoutObject receiver)
+            throws VirtualFileNoBandwidthException {
         BandwidthControl senderBandwidthControl = sender.getBandwidthControl();
         BandwidthControl recieverBandwidthControl = receiver.getBandwidthControl();
 
         if (senderBandwidthControl != null && !senderBandwidthControl.initiateUpload()) {
-            throw new VirtualFileNoBandwidthException(fromId);
+            throw new VirtualFileNoBandwidthException(sender.getId());
         }
 
         if (recieverBandwidthControl != null && !recieverBandwidthControl.initiateDownload()) {
+            // Released straight away, so rates worked out before the next
+            // minute don't count the upload
             if (senderBandwidthControl != null) {
-                senderBandwidthControl.endUpload();
+                senderBandwidthControl.cancelUpload();
             }
-            throw new VirtualFileNoBandwidthException(toId);
+            throw new VirtualFileNoBandwidthException(receiver.getId());
         }
-
-        FileInfo transferFile = new FileInfo(originalFile.getFileName(), "", originalFile.getFileSize(), true);
-
-        receiverFileStorage.addFile(transferFile);
-
-        filesInTransfer.add(new FileInTransfer(sender, receiver, originalFile, transferFile));
     }
 
     public void createDevice(String deviceId, String type, Angle position, boolean isMoving) {
+        this.stateVersion++;
         if (isMoving) {
             DeviceFactory deviceFactory = new DeviceFactory();
-            this.blackoutObjects.put(deviceId, deviceFactory.createNewMovingDevice(deviceId, position, type));
+            blackoutObjectRemoved(
+                    this.blackoutObjects.put(deviceId, deviceFactory.createNewMovingDevice(deviceId, position, type)));
+            blackoutObjectAdded(deviceId);
         } else {
             createDevice(deviceId, type, position);
         }
     }
 
+    /**
+     * Sets the number of blackout objects at which neighbour searches use a
+     * spatial index instead of checking every pair of blackout objects. Small
+     * scenarios are quicker to check by brute force.
+     * 
+     * @param spatialIndexThreshold number of blackout objects, 0 to always use
+     *                              the spatial index
+     */
+    public void setSpatialIndexThreshold(int spatialIndexThreshold) {
+        this.spatialIndexThreshold = spatialIndexThreshold;
+        this.communicationGraph = null;
+    }
+
     public void createSlope(int startAngle, int endAngle, int gradient) {
+        this.stateVersion++;
         this.slopes.add(new Slope(startAngle, endAngle, gradient));
     }
 
+    /**
+     * Gets the version of the state of the blackout objects, files and
+     * transfers. Every change and every simulated minute makes it bigger, so
+     * anything worked out from the same version is still up to date.
+     * 
+     * @return the state version
+     */
+    public long getStateVersion() {
+        return this.stateVersion;
+    }
+
 }
@@ -1,6 +1,6 @@
 package unsw.blackout;
 
-import unsw.utils.MathsHelper;
+import unsw.utils.CartesianHelpers;
 import unsw.entities.BlackoutObject;
 import unsw.entities.filemanagement.FileInTransfer;
 import unsw.entities.filemanagement.FileInfo;
@@ -11,7 +11,6 @@ import unsw.response.models.FileInfoResponse;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Stack;
 
 /**
  * Helper functions for BlackoutController
@@ -70,23 +69,24 @@ public class BlackoutHelpers {
      */
     private static boolean isVisible(BlackoutObject bo1, BlackoutObject bo2) {
         if (!bo1.doesOrbit()) {
-            return MathsHelper.isVisible(bo2.getHeight(), bo2.getPosition(), bo1.getPosition());
-        } else if (!bo2.doesOrbit()) {
-            return MathsHelper.isVisible(bo1.getHeight(), bo1.getPosition(), bo2.getPosition());
+            return CartesianHelpers.isVisible(bo2.getX(), bo2.getY(), bo2.getRadiusSquared(), bo1.getVisibilityX(),
+                    bo1.getVisibilityY());
         }
-        return MathsHelper.isVisible(bo1.getHeight(), bo1.getPosition(), bo2.getHeight(), bo2.getPosition());
+        return CartesianHelpers.isVisible(bo1.getX(), bo1.getY(), bo1.getRadiusSquared(), bo2.getVisibilityX(),
+                bo2.getVisibilityY());
     }
 
     /**
-     * Gets the distance between two blackout objects
+     * Checks whether the target blackout object is within the range of the
+     * source blackout object
      * 
-     * @param bo1
-     * @param bo2
-     * @return distance between two blackout objects
+     * @param source
+     * @param target
+     * @return whether target is within range of source
      */
-    private static double getDistance(BlackoutObject bo1, BlackoutObject bo2) {
-        return MathsHelper.getDistance(bo1.getHeight(), bo1.getPosition(), bo2.getHeight(),
-                bo2.getPosition());
+    private static boolean isWithinRange(BlackoutObject source, BlackoutObject target) {
+        return CartesianHelpers.isWithinRange(source.getX(), source.getY(), target.getX(), target.getY(),
+                source.getRange());
     }
 
     /**
@@ -96,7 +96,7 @@ public class BlackoutHelpers {
      * @param target
      * @return two different blackout objects support each other
      */
-    private static boolean supportsEachOther(BlackoutObject source, BlackoutObject target) {
+    public static boolean supportsEachOther(BlackoutObject source, BlackoutObject target) {
         return source.doesSupport(target.getType()) && target.doesSupport(source.getType())
                 && !source.equals(target);
     }
@@ -109,60 +109,9 @@ public class BlackoutHelpers {
      * @param target
      * @return whether two different blackout objects can communicate
      */
-    private static boolean isCommunicable(BlackoutObject source, BlackoutObject target) {
-        return isVisible(source, target) && getDistance(source, target) <= source.getRange() && !source.equals(target)
-                && supportsEachOther(source, target);
-    }
-
-    /**
-     * Use depth first search to find all the communicable blackout objects since
-     * relay acts as nodes in a graph
-     * 
-     * @param source          is the blackout object that requires the list of its
-     *                        communicable blackout object
-     * @param blackoutObjects hashmap of active blackout objects
-     * @return list of communicable blackout objects
-     */
-    public static List<String> dfsFindCommunicables(BlackoutObject source,
-            HashMap<String, BlackoutObject> blackoutObjects) {
-        List<String> communicables = new ArrayList<String>();
-
-        HashMap<String, Integer> visited = new HashMap<String, Integer>();
-
-        Stack<String> stack = new Stack<String>();
-
-        for (BlackoutObject blackoutObject : blackoutObjects.values()) {
-            if (isCommunicable(source, blackoutObject)) {
-                stack.push(blackoutObject.getId());
-            }
-            visited.put(blackoutObject.getId(), -1);
-        }
-
-        while (!stack.empty()) {
-            String currentBlackoutObjectId = stack.pop();
-
-            if (visited.get(currentBlackoutObjectId) == -1) {
-
-                visited.replace(currentBlackoutObjectId, 0);
-
-                communicables.add(currentBlackoutObjectId);
-
-                BlackoutObject currentBlackoutObject = blackoutObjects.get(currentBlackoutObjectId);
-
-                if (currentBlackoutObject.canExtendRange()) {
-                    for (BlackoutObject blackoutObject : blackoutObjects.values()) {
-                        if (isCommunicable(currentBlackoutObject, blackoutObject) &&
-                                supportsEachOther(source, blackoutObject)) {
-                            stack.push(blackoutObject.getId());
-                        }
-                    }
-                }
-
-            }
-
-        }
-
-        return communicables;
+    public static boolean isCommunicable(BlackoutObject source, BlackoutObject target) {
+        // Support is checked first since it does not depend on where the objects are
+        return supportsEachOther(source, target) && isVisible(source, target) && isWithinRange(source, target);
     }
 
     /**
@@ -182,22 +131,36 @@ public class BlackoutHelpers {
     public static boolean doFileTransfer(BandwidthControl senderBC, BandwidthControl receiverBC,
             FileInTransfer fileInTransfer) {
         if (fileInTransfer.getTransferRate() == 0) {
-            if (senderBC == null) {
-                fileInTransfer.setTransferRate(receiverBC.getDownloadBandwidth());
-            } else if (receiverBC == null) {
-                fileInTransfer.setTransferRate(senderBC.getUploadBandwidth());
-            } else {
-                fileInTransfer.setTransferRate(senderBC.getMaxTransferRate(receiverBC));
-            }
+            fileInTransfer.setTransferRate(getTransferRate(senderBC, receiverBC));
         }
 
         if (fileInTransfer.startTransfer()) {
-            finishUploadDownload(senderBC, receiverBC);
+            finishUploadDownload(senderBC, receiverBC, fileInTransfer);
             return true;
         }
         return false;
     }
 
+    /**
+     * Gets the rate a sender can transfer to a reciever at given their
+     * current uploads and downloads. Either the sender or reciever must have a
+     * bandwidth control.
+     * 
+     * @param senderBC   sender's bandwidth control, if sender does not have one
+     *                   it is null
+     * @param receiverBC reciever's bandwidth control, if reciever does not have
+     *                   on it is null
+     * @return bytes transferred every minute
+     */
+    public static int getTransferRate(BandwidthControl senderBC, BandwidthControl receiverBC) {
+        if (senderBC == null) {
+            return receiverBC.getDownloadBandwidth();
+        } else if (receiverBC == null) {
+            return senderBC.getUploadBandwidth();
+        }
+        return senderBC.getMaxTransferRate(receiverBC);
+    }
+
     /**
      * Ends the download for the sender or reciever
      * 
@@ -213,4 +176,34 @@ public class BlackoutHelpers {
             receiverBC.endDownload();
         }
     }
+
+    /**
+     * Undoes an upload and download started this minute, e.g. when a transfer
+     * could not be started after all, freeing the bandwidth straight away
+     * 
+     * @param senderBC
+     * @param receiverBC
+     */
+    public static void cancelUploadDownload(BandwidthControl senderBC, BandwidthControl receiverBC) {
+        if (senderBC != null) {
+            senderBC.cancelUpload();
+        }
+
+        if (receiverBC != null) {
+            receiverBC.cancelDownload();
+        }
+    }
+
+    /**
+     * Ends the download for the reciever of the given file in transfer, and the
+     * upload for the sender unless other recievers still share it
+     * 
+     * @param senderBC
+     * @param receiverBC
+     * @param fileInTransfer file in transfer that finished
+     */
+    public static void finishUploadDownload(BandwidthControl senderBC, BandwidthControl receiverBC,
+            FileInTransfer fileInTransfer) {
+        finishUploadDownload(fileInTransfer.finishUpload() ? senderBC : null, receiverBC);
+    }
 }
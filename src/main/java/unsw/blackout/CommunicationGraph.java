@@ -0,0 +1,369 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.utils.UnionFind;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * CommunicationGraph keeps track of which blackout objects can directly
+ * communicate with each other. Links are kept between ticks and only the
+ * pairs where at least one blackout object has moved are checked again, so
+ * every range query made during a tick shares the same link checks.
+ */
+public class CommunicationGraph {
+    private static final int NUM_SECTORS = 360;
+
+    private HashMap<String, BlackoutObject> blackoutObjects;
+    private int spatialIndexThreshold;
+    private SectorIndex sectorIndex = null;
+    private int maxRange = 0;
+    private HashMap<String, LinkedHashSet<BlackoutObject>> adjacency = new HashMap<>();
+    private HashMap<String, LinkedHashSet<BlackoutObject>> incoming = new HashMap<>();
+    private HashMap<String, LinkedHashSet<String>> communicables = new HashMap<>();
+    private List<BlackoutObject> relays = new ArrayList<>();
+    private HashMap<String, Integer> relayIndexes = new HashMap<>();
+    private HashMap<Integer, List<BlackoutObject>> relaysByComponent = new HashMap<>();
+    private HashMap<Integer, List<BlackoutObject>> relayComponentMembers = new HashMap<>();
+    private UnionFind relayComponents;
+    private LinkThresholds linkThresholds = new LinkThresholds();
+    // Link changes since clearLinkChanges was last called
+    private HashSet<String> changedLinks = new HashSet<>();
+    private boolean allRangesChanged = true;
+
+    /**
+     * Builds the direct links between blackout objects. When there are at least
+     * spatialIndexThreshold blackout objects, a SectorIndex is used so only
+     * blackout objects that could be in range are checked, otherwise every pair
+     * is checked.
+     *
+     * @param blackoutObjects       hashmap of active blackout objects
+     * @param spatialIndexThreshold number of blackout objects at which the
+     *                              spatial index is used
+     */
+    public CommunicationGraph(HashMap<String, BlackoutObject> blackoutObjects, int spatialIndexThreshold) {
+        this.blackoutObjects = blackoutObjects;
+        this.spatialIndexThreshold = spatialIndexThreshold;
+        rebuildSectorIndex();
+
+        for (BlackoutObject blackoutObject : blackoutObjects.values()) {
+            this.adjacency.put(blackoutObject.getId(), new LinkedHashSet<>());
+            this.incoming.put(blackoutObject.getId(), new LinkedHashSet<>());
+        }
+        for (BlackoutObject source : blackoutObjects.values()) {
+            for (BlackoutObject target : findNeighbours(source)) {
+                link(source, target);
+            }
+        }
+
+        resetRelayComponents();
+    }
+
+    /**
+     * Adds a newly created blackout object and checks its links with every
+     * other blackout object
+     *
+     * @param blackoutObject that was created
+     */
+    public void addBlackoutObject(BlackoutObject blackoutObject) {
+        removeBlackoutObject(blackoutObject.getId());
+        this.adjacency.put(blackoutObject.getId(), new LinkedHashSet<>());
+        this.incoming.put(blackoutObject.getId(), new LinkedHashSet<>());
+
+        HashSet<String> added = new HashSet<>();
+        added.add(blackoutObject.getId());
+        update(added);
+    }
+
+    /**
+     * Removes all the links to and from the given blackout object
+     *
+     * @param id of the removed blackout object
+     */
+    public void removeBlackoutObject(String id) {
+        LinkedHashSet<BlackoutObject> outgoing = this.adjacency.remove(id);
+        if (outgoing == null) {
+            return;
+        }
+
+        for (BlackoutObject target : outgoing) {
+            this.incoming.get(target.getId()).removeIf(source -> source.getId().equals(id));
+        }
+        for (BlackoutObject source : this.incoming.remove(id)) {
+            this.adjacency.get(source.getId()).removeIf(target -> target.getId().equals(id));
+        }
+        this.allRangesChanged = true;
+        resetRelayComponents();
+    }
+
+    /**
+     * Checks the links again for the blackout objects that moved. Pairs where
+     * neither blackout object moved keep their links, and pairs that do not
+     * support each other are never checked.
+     *
+     * @param moved ids of the blackout objects whose position or height changed
+     */
+    public void update(Set<String> moved) {
+        if (moved.isEmpty()) {
+            return;
+        }
+
+        rebuildSectorIndex();
+        boolean linksChanged = false;
+
+        for (String id : moved) {
+            BlackoutObject source = this.blackoutObjects.get(id);
+
+            LinkedHashSet<BlackoutObject> neighbours = findNeighbours(source);
+            for (BlackoutObject oldNeighbour : new ArrayList<>(this.adjacency.get(id))) {
+                if (!neighbours.contains(oldNeighbour)) {
+                    linksChanged |= unlink(source, oldNeighbour);
+                }
+            }
+            for (BlackoutObject neighbour : neighbours) {
+                linksChanged |= link(source, neighbour);
+            }
+
+            // Objects that did not move may have gained or lost a link to the moved object
+            LinkedHashSet<BlackoutObject> others = new LinkedHashSet<>(this.incoming.get(id));
+            others.addAll(getCandidates(source, this.maxRange));
+            for (BlackoutObject other : others) {
+                if (moved.contains(other.getId()) || !BlackoutHelpers.supportsEachOther(other, source)) {
+                    continue;
+                }
+
+                if (this.linkThresholds.isCommunicable(other, source)) {
+                    linksChanged |= link(other, source);
+                } else {
+                    linksChanged |= unlink(other, source);
+                }
+            }
+        }
+
+        if (linksChanged) {
+            resetRelayComponents();
+        }
+    }
+
+    private boolean link(BlackoutObject source, BlackoutObject target) {
+        if (!this.adjacency.get(source.getId()).add(target)) {
+            return false;
+        }
+        this.incoming.get(target.getId()).add(source);
+        linkChanged(source, target);
+        return true;
+    }
+
+    private boolean unlink(BlackoutObject source, BlackoutObject target) {
+        if (!this.adjacency.get(source.getId()).remove(target)) {
+            return false;
+        }
+        this.incoming.get(target.getId()).remove(source);
+        linkChanged(source, target);
+        return true;
+    }
+
+    private void linkChanged(BlackoutObject source, BlackoutObject target) {
+        this.changedLinks.add(source.getId());
+        this.changedLinks.add(target.getId());
+        if (source.canExtendRange() || target.canExtendRange()) {
+            // Relays can connect anything to anything
+            this.allRangesChanged = true;
+        }
+    }
+
+    /**
+     * Checks whether any range may have changed since clearLinkChanges was last
+     * called, i.e. a link to a relay changed or a blackout object was removed
+     *
+     * @return whether every range may have changed
+     */
+    public boolean mayHaveChangedAllRanges() {
+        return this.allRangesChanged;
+    }
+
+    /**
+     * Gets the ids of the blackout objects with a link that came up or went
+     * down since clearLinkChanges was last called
+     *
+     * @return ids of blackout objects with changed links
+     */
+    public Set<String> getChangedLinks() {
+        return this.changedLinks;
+    }
+
+    /**
+     * Forgets the link changes that have happened so far
+     */
+    public void clearLinkChanges() {
+        this.changedLinks.clear();
+        this.allRangesChanged = false;
+    }
+
+    /**
+     * Gets the blackout objects the source can directly communicate with
+     * i.e. without the help of relay satellites
+     *
+     * @param id of the source blackout object
+     * @return list of directly communicable blackout objects
+     */
+    public List<BlackoutObject> getNeighbours(String id) {
+        return new ArrayList<>(neighboursOf(id));
+    }
+
+    private Collection<BlackoutObject> neighboursOf(String id) {
+        return this.adjacency.getOrDefault(id, new LinkedHashSet<>());
+    }
+
+    private LinkedHashSet<BlackoutObject> findNeighbours(BlackoutObject source) {
+        LinkedHashSet<BlackoutObject> neighbours = new LinkedHashSet<>();
+        for (BlackoutObject target : getCandidates(source, source.getRange())) {
+            if (this.linkThresholds.isCommunicable(source, target)) {
+                neighbours.add(target);
+            }
+        }
+        return neighbours;
+    }
+
+    private Collection<BlackoutObject> getCandidates(BlackoutObject source, double range) {
+        if (this.sectorIndex == null) {
+            return this.blackoutObjects.values();
+        }
+        return this.sectorIndex.getCandidates(source, range);
+    }
+
+    private void rebuildSectorIndex() {
+        this.maxRange = 0;
+        for (BlackoutObject blackoutObject : this.blackoutObjects.values()) {
+            this.maxRange = Math.max(this.maxRange, blackoutObject.getRange());
+        }
+
+        this.sectorIndex = null;
+        if (this.blackoutObjects.size() >= this.spatialIndexThreshold) {
+            this.sectorIndex = new SectorIndex(this.blackoutObjects.values(), NUM_SECTORS);
+        }
+    }
+
+    /**
+     * Finds all the communicable blackout objects. Relays act as nodes in a graph
+     * so the source can reach its direct neighbours and everything linked to the
+     * relay components that its neighbouring relays belong to. Results are cached
+     * for the lifetime of the graph.
+     *
+     * @param id of the blackout object that requires the list of its
+     *           communicable blackout object
+     * @return list of communicable blackout object ids
+     */
+    public List<String> getCommunicables(String id) {
+        return new ArrayList<>(findCommunicables(id));
+    }
+
+    /**
+     * Checks whether the target is communicable from the source
+     *
+     * @param sourceId
+     * @param targetId
+     * @return whether the target is in range of the source
+     */
+    public boolean isInRange(String sourceId, String targetId) {
+        return findCommunicables(sourceId).contains(targetId);
+    }
+
+    private LinkedHashSet<String> findCommunicables(String id) {
+        LinkedHashSet<String> found = this.communicables.get(id);
+        if (found != null) {
+            return found;
+        }
+
+        BlackoutObject source = this.blackoutObjects.get(id);
+        found = new LinkedHashSet<>();
+        HashSet<Integer> componentsVisited = new HashSet<>();
+
+        for (BlackoutObject neighbour : neighboursOf(id)) {
+            found.add(neighbour.getId());
+        }
+
+        for (BlackoutObject neighbour : neighboursOf(id)) {
+            if (!neighbour.canExtendRange()) {
+                continue;
+            }
+
+            int component = this.relayComponents.find(this.relayIndexes.get(neighbour.getId()));
+            if (componentsVisited.add(component)) {
+                for (BlackoutObject member : getRelayComponentMembers(component)) {
+                    if (BlackoutHelpers.supportsEachOther(source, member)) {
+                        found.add(member.getId());
+                    }
+                }
+            }
+        }
+
+        this.communicables.put(id, found);
+        return found;
+    }
+
+    /**
+     * Gets every blackout object linked to any relay in the given relay
+     * component, including the relays themselves
+     *
+     * @param component representative of the relay component
+     * @return blackout objects reachable through the relay component
+     */
+    private List<BlackoutObject> getRelayComponentMembers(int component) {
+        List<BlackoutObject> members = this.relayComponentMembers.get(component);
+        if (members != null) {
+            return members;
+        }
+
+        LinkedHashSet<BlackoutObject> unique = new LinkedHashSet<>();
+        for (BlackoutObject relay : this.relaysByComponent.get(component)) {
+            unique.add(relay);
+            unique.addAll(neighboursOf(relay.getId()));
+        }
+
+        members = new ArrayList<>(unique);
+        this.relayComponentMembers.put(component, members);
+        return members;
+    }
+
+    /**
+     * Groups relays that are linked to each other, directly or through other
+     * relays, into the same relay component. This clears any cached range
+     * queries since they depend on the links.
+     */
+    private void resetRelayComponents() {
+        this.communicables.clear();
+        this.relays.clear();
+        this.relayIndexes.clear();
+        this.relaysByComponent.clear();
+        this.relayComponentMembers.clear();
+
+        for (BlackoutObject blackoutObject : this.blackoutObjects.values()) {
+            if (blackoutObject.canExtendRange()) {
+                this.relayIndexes.put(blackoutObject.getId(), this.relays.size());
+                this.relays.add(blackoutObject);
+            }
+        }
+
+        this.relayComponents = new UnionFind(this.relays.size());
+        for (BlackoutObject relay : this.relays) {
+            for (BlackoutObject neighbour : neighboursOf(relay.getId())) {
+                if (neighbour.canExtendRange()) {
+                    this.relayComponents.union(this.relayIndexes.get(relay.getId()),
+                            this.relayIndexes.get(neighbour.getId()));
+                }
+            }
+        }
+
+        for (BlackoutObject relay : this.relays) {
+            int component = this.relayComponents.find(this.relayIndexes.get(relay.getId()));
+            this.relaysByComponent.computeIfAbsent(component, c -> new ArrayList<>()).add(relay);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package unsw.blackout;
+
+import unsw.entities.filemanagement.FileInTransfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * CompletionScheduler orders files in transfer by the minute they are
+ * predicted to complete in, so each minute only the transfers completing in
+ * it have to be looked at. A transfer that is scheduled again, e.g. after it
+ * is resumed, keeps its old entry until it comes up and is found to be out of
+ * date.
+ */
+public class CompletionScheduler {
+    private PriorityQueue<ScheduledCompletion> completions = new PriorityQueue<>();
+
+    private static class ScheduledCompletion implements Comparable<ScheduledCompletion> {
+        private long minute;
+        private FileInTransfer fileInTransfer;
+
+        private ScheduledCompletion(long minute, FileInTransfer fileInTransfer) {
+            this.minute = minute;
+            this.fileInTransfer = fileInTransfer;
+        }
+
+        @Override
+        public int compareTo(ScheduledCompletion other) {
+            return Long.compare(this.minute, other.minute);
+        }
+    }
+
+    /**
+     * Schedules a resumed file in transfer with a transfer rate for the minute
+     * it is predicted to complete in
+     *
+     * @param fileInTransfer file in transfer to schedule
+     */
+    public void schedule(FileInTransfer fileInTransfer) {
+        this.completions.add(new ScheduledCompletion(fileInTransfer.getCompletionMinute(), fileInTransfer));
+    }
+
+    /**
+     * Removes and gets the files in transfer that are scheduled to complete in
+     * or before the given minute. Files in transfer that were scheduled again
+     * for a different minute are not included, but files in transfer that have
+     * since finished may be.
+     *
+     * @param minute current minute
+     * @return files in transfer that may complete in the given minute
+     */
+    public List<FileInTransfer> pollDue(long minute) {
+        List<FileInTransfer> due = new ArrayList<>();
+        while (!this.completions.isEmpty() && this.completions.peek().minute <= minute) {
+            ScheduledCompletion completion = this.completions.poll();
+            if (completion.minute == minute && completion.fileInTransfer.getCompletionMinute() == minute) {
+                due.add(completion.fileInTransfer);
+            }
+        }
+        return due;
+    }
+}
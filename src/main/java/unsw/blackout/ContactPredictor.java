@@ -0,0 +1,40 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.utils.LinkGeometry;
+
+/**
+ * ContactPredictor estimates when a satellite will next be able to send to a
+ * target, i.e. when they are next in contact. Which way a satellite goes
+ * depends on how it moves, so the estimate is the soonest the satellite
+ * could close the angle between them going either way.
+ */
+public class ContactPredictor {
+    /**
+     * Gets the fewest minutes before the satellite could be in contact with
+     * the target
+     *
+     * @param satellite source of the contact
+     * @param target    target of the contact
+     * @return estimated minutes until contact, 0 if they are in contact now and
+     *         Long.MAX_VALUE if they will never be in contact
+     */
+    public static long getMinutesUntilContact(BlackoutObject satellite, BlackoutObject target) {
+        if (!BlackoutHelpers.supportsEachOther(satellite, target)) {
+            return Long.MAX_VALUE;
+        }
+        if (BlackoutHelpers.isCommunicable(satellite, target)) {
+            return 0;
+        }
+
+        double maxSeparation = LinkGeometry.getMaxLinkSeparation(satellite.getHeight(), satellite.doesOrbit(),
+                target.getHeight(), target.doesOrbit(), satellite.getRange());
+        double angularVelocity = satellite.getLinearSpeed() / satellite.getHeight();
+        if (Double.isNaN(maxSeparation) || angularVelocity <= 0) {
+            return Long.MAX_VALUE;
+        }
+
+        double separation = LinkGeometry.getSeparation(satellite.getPosition(), target.getPosition());
+        return (long) Math.ceil(Math.max(0, separation - maxSeparation) / angularVelocity);
+    }
+}
@@ -0,0 +1,123 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+
+/**
+ * Delivery keeps track of a file being carried to its destination one hop at
+ * a time. The holder is the blackout object that has the whole file, and the
+ * next hop is the one it is currently being sent to, if any.
+ */
+public class Delivery {
+    private String fileName;
+    private BlackoutObject origin;
+    private BlackoutObject destination;
+    private BlackoutObject holder;
+    private BlackoutObject nextHop = null;
+    private long startMinute;
+    private long deliveredMinute = -1;
+    private boolean failed = false;
+    private int numHops = 0;
+    private long bytesMoved = 0;
+
+    /**
+     * Creates a delivery of a file that starts at its origin
+     *
+     * @param fileName    name of the file
+     * @param origin      blackout object that has the file
+     * @param destination blackout object to deliver the file to
+     * @param startMinute minute the delivery started in
+     */
+    public Delivery(String fileName, BlackoutObject origin, BlackoutObject destination, long startMinute) {
+        this.fileName = fileName;
+        this.origin = origin;
+        this.destination = destination;
+        this.holder = origin;
+        this.startMinute = startMinute;
+    }
+
+    public String getFileName() {
+        return this.fileName;
+    }
+
+    public BlackoutObject getOrigin() {
+        return this.origin;
+    }
+
+    public BlackoutObject getDestination() {
+        return this.destination;
+    }
+
+    public BlackoutObject getHolder() {
+        return this.holder;
+    }
+
+    public long getStartMinute() {
+        return this.startMinute;
+    }
+
+    public BlackoutObject getNextHop() {
+        return this.nextHop;
+    }
+
+    public void setNextHop(BlackoutObject nextHop) {
+        this.nextHop = nextHop;
+    }
+
+    /**
+     * Makes the next hop the holder once the whole file has been sent to it
+     *
+     * @param bytes  number of bytes sent to the next hop
+     * @param minute current minute
+     */
+    public void hopCompleted(int bytes, long minute) {
+        this.holder = this.nextHop;
+        this.nextHop = null;
+        this.numHops++;
+        this.bytesMoved += bytes;
+        if (this.holder == this.destination) {
+            this.deliveredMinute = minute;
+        }
+    }
+
+    public boolean isDelivered() {
+        return this.deliveredMinute >= 0;
+    }
+
+    public boolean isFailed() {
+        return this.failed;
+    }
+
+    public void fail() {
+        this.failed = true;
+    }
+
+    /**
+     * Checks whether the delivery still has to be worked on
+     *
+     * @return whether the file is neither delivered nor failed
+     */
+    public boolean isPending() {
+        return !isDelivered() && !isFailed();
+    }
+
+    public int getNumHops() {
+        return this.numHops;
+    }
+
+    public long getBytesMoved() {
+        return this.bytesMoved;
+    }
+
+    /**
+     * Gets how many minutes the delivery took
+     *
+     * @return minutes from starting to the file reaching the destination, -1 if
+     *         it has not been delivered
+     */
+    public long getLatency() {
+        if (!isDelivered()) {
+            return -1;
+        }
+        return this.deliveredMinute - this.startMinute;
+    }
+}
@@ -0,0 +1,132 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.entities.filemanagement.FileInTransfer;
+import unsw.utils.Angle;
+import unsw.utils.LinkGeometry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Works out how many minutes can pass before anything observable happens to
+ * the files in transfer, i.e. a link that a transfer could depend on comes up
+ * or goes down, a transfer completes or a teleporting satellite teleports.
+ * Those minutes can be skipped instead of simulated one by one.
+ */
+public class EventHorizon {
+    // Leaves room for rounding between the predicted and the checked geometry
+    private static final double ANGLE_MARGIN = 1e-7;
+
+    /**
+     * Gets the number of minutes, up to maxMinutes, that can be skipped without
+     * missing an event. This is 0 when the next minute must be simulated
+     * normally, e.g. a transfer has not started yet or is about to go out of
+     * range. Slopes are not considered, so this should not be used while a
+     * moving device could go up a slope.
+     *
+     * @param blackoutObjects    every active blackout object
+     * @param filesInTransfer    files currently in transfer
+     * @param communicationGraph links for the current positions
+     * @param maxMinutes         most minutes that should be skipped
+     * @return number of minutes without events
+     */
+    public static int getMinutesWithoutEvents(Collection<BlackoutObject> blackoutObjects,
+            Collection<FileInTransfer> filesInTransfer, CommunicationGraph communicationGraph, int maxMinutes) {
+        long minutes = maxMinutes;
+        if (filesInTransfer.isEmpty()) {
+            return maxMinutes;
+        }
+
+        LinkedHashSet<BlackoutObject> relevant = new LinkedHashSet<>();
+        for (FileInTransfer fit : filesInTransfer) {
+            if (fit.getTransferRate() <= 0
+                    || !communicationGraph.isInRange(fit.getSender().getId(), fit.getReciever().getId())) {
+                return 0;
+            }
+
+            // The transfer can progress for every minute except the one it completes in
+            minutes = Math.min(minutes, fit.getMinutesUntilCompleted() - 1);
+
+            relevant.add(fit.getSender());
+            relevant.add(fit.getReciever());
+        }
+
+        // Any relay could be part of the path between a sender and a reciever
+        for (BlackoutObject blackoutObject : blackoutObjects) {
+            if (blackoutObject.canExtendRange()) {
+                relevant.add(blackoutObject);
+            }
+        }
+
+        List<BlackoutObject> relevantObjects = new ArrayList<>(relevant);
+        for (BlackoutObject blackoutObject : relevantObjects) {
+            if (blackoutObject.canTeleport()) {
+                minutes = Math.min(minutes, getMinutesUntilTeleport(blackoutObject));
+            }
+        }
+
+        for (BlackoutObject source : relevantObjects) {
+            for (BlackoutObject target : relevantObjects) {
+                if (minutes <= 0) {
+                    return 0;
+                }
+                if (BlackoutHelpers.supportsEachOther(source, target)) {
+                    minutes = Math.min(minutes, getMinutesUntilLinkMayChange(source, target));
+                }
+            }
+        }
+
+        return (int) Math.max(0, minutes);
+    }
+
+    private static double getAngularVelocity(BlackoutObject blackoutObject) {
+        return blackoutObject.getLinearSpeed() / blackoutObject.getHeight();
+    }
+
+    private static long getMinutesUntilLinkMayChange(BlackoutObject source, BlackoutObject target) {
+        double maxSeparation = LinkGeometry.getMaxLinkSeparation(source.getHeight(), source.doesOrbit(),
+                target.getHeight(), target.doesOrbit(), source.getRange());
+        if (Double.isNaN(maxSeparation)) {
+            return 0;
+        }
+        if (maxSeparation >= Math.PI) {
+            // Always linked no matter where they are
+            return Long.MAX_VALUE;
+        }
+
+        double separation = LinkGeometry.getSeparation(source.getPosition(), target.getPosition());
+        double margin = Math.abs(separation - maxSeparation) - ANGLE_MARGIN;
+        return getMinutesToCover(margin, getAngularVelocity(source) + getAngularVelocity(target));
+    }
+
+    private static long getMinutesUntilTeleport(BlackoutObject blackoutObject) {
+        // Teleports happen at 180 degrees, which could be approached from either side
+        double position = blackoutObject.getPosition().toRadians() % (2 * Math.PI);
+        if (position < 0) {
+            position += 2 * Math.PI;
+        }
+        double distance = Math.abs(position - Angle.fromDegrees(180).toRadians()) - ANGLE_MARGIN;
+        return getMinutesToCover(distance, getAngularVelocity(blackoutObject));
+    }
+
+    /**
+     * Gets how many whole minutes are guaranteed to pass before an angle can
+     * change by more than the given amount.
+     *
+     * @param angle           how much the angle can change by
+     * @param angularVelocity most the angle changes by per minute
+     * @return number of minutes
+     */
+    private static long getMinutesToCover(double angle, double angularVelocity) {
+        if (angle <= 0) {
+            return 0;
+        }
+        if (angularVelocity <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.min(Long.MAX_VALUE, Math.floor(angle / angularVelocity));
+    }
+}
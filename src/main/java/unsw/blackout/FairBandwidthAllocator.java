@@ -0,0 +1,220 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.entities.filemanagement.FileInTransfer;
+import unsw.entities.filemanagement.MulticastUpload;
+import unsw.entities.filemanagement.StripedTransfer;
+import unsw.entities.other.BandwidthControl;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FairBandwidthAllocator works out max-min fair transfer rates for files in
+ * transfer. Every sender's upload bandwidth and every reciever's download
+ * bandwidth is shared between the transfers using it, and a transfer limited
+ * by one of them gives the bandwidth it cannot use elsewhere to the others.
+ *
+ * Rates are filled in progressively; the bandwidth with the smallest equal
+ * share is split evenly between its transfers, which are then fixed at that
+ * rate, until every transfer has a rate. Bytes that do not split evenly go to
+ * the transfers sent first. A file sent to several recievers at once shares
+ * one upload, so it is given one share of the sender's upload bandwidth,
+ * while each sender of a striped transfer has a share of its own.
+ */
+public class FairBandwidthAllocator {
+    private static class Bandwidth {
+        private int remaining;
+        private List<Flow> users = new ArrayList<>();
+
+        private Bandwidth(int remaining) {
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Flow is one use of a sender's upload. A file sent to several recievers
+     * at once is one flow, so it only takes one share of the upload, and
+     * every reciever gets it at the same rate.
+     */
+    private static class Flow {
+        private List<FileInTransfer> filesInTransfer = new ArrayList<>();
+        private StripedTransfer stripedTransfer = null;
+        private BlackoutObject stripeSender = null;
+        private List<Bandwidth> limits = new ArrayList<>();
+        private Integer rate = null;
+    }
+
+    /**
+     * Allocation is the transfer rate of every file in transfer and every
+     * sender of a striped transfer that was given one.
+     */
+    public static class Allocation {
+        private HashMap<FileInTransfer, Integer> fileRates = new HashMap<>();
+        private HashMap<StripedTransfer, HashMap<BlackoutObject, Integer>> stripeRates = new HashMap<>();
+
+        /**
+         * Gets the transfer rate of a file in transfer
+         *
+         * @param fit
+         * @return bytes transferred every minute, 0 if it was not given a rate
+         */
+        public int getRate(FileInTransfer fit) {
+            return this.fileRates.getOrDefault(fit, 0);
+        }
+
+        /**
+         * Gets the transfer rate of one sender of a striped transfer
+         *
+         * @param stripedTransfer
+         * @param sender
+         * @return bytes sent by the sender every minute, 0 if it was not given a
+         *         rate
+         */
+        public int getRate(StripedTransfer stripedTransfer, BlackoutObject sender) {
+            return this.stripeRates.getOrDefault(stripedTransfer, new HashMap<>()).getOrDefault(sender, 0);
+        }
+    }
+
+    /**
+     * Gets the max-min fair transfer rate of each of the given files in
+     * transfer and each sender of the given striped transfers. Each sender of
+     * a striped transfer shares bandwidth the same as a file in transfer
+     * between it and the reciever. Transfers whose sender and reciever both
+     * have unlimited bandwidth are left out.
+     *
+     * @param filesInTransfer files in transfer that are in range, in the order
+     *                        they were sent
+     * @param stripeSenders   senders in range of the reciever of each striped
+     *                        transfer, in the order they were sent
+     * @return transfer rates
+     */
+    public static Allocation allocate(List<FileInTransfer> filesInTransfer,
+            Map<StripedTransfer, List<BlackoutObject>> stripeSenders) {
+        HashMap<BandwidthControl, Bandwidth> uploads = new HashMap<>();
+        HashMap<BandwidthControl, Bandwidth> downloads = new HashMap<>();
+        HashMap<MulticastUpload, Flow> multicastFlows = new HashMap<>();
+        List<Flow> flows = new ArrayList<>();
+
+        for (FileInTransfer fit : filesInTransfer) {
+            MulticastUpload multicastUpload = fit.getMulticastUpload();
+            Flow flow = multicastUpload == null ? null : multicastFlows.get(multicastUpload);
+            if (flow == null) {
+                flow = new Flow();
+                addUploadLimit(flow, fit.getSender(), uploads);
+                flows.add(flow);
+                if (multicastUpload != null) {
+                    multicastFlows.put(multicastUpload, flow);
+                }
+            }
+            flow.filesInTransfer.add(fit);
+            addDownloadLimit(flow, fit.getReciever(), downloads);
+        }
+
+        for (Map.Entry<StripedTransfer, List<BlackoutObject>> entry : stripeSenders.entrySet()) {
+            for (BlackoutObject sender : entry.getValue()) {
+                Flow flow = new Flow();
+                flow.stripedTransfer = entry.getKey();
+                flow.stripeSender = sender;
+                addUploadLimit(flow, sender, uploads);
+                addDownloadLimit(flow, entry.getKey().getReciever(), downloads);
+                flows.add(flow);
+            }
+        }
+
+        Set<Bandwidth> unfilled = new LinkedHashSet<>();
+        for (Flow flow : flows) {
+            unfilled.addAll(flow.limits);
+        }
+
+        while (!unfilled.isEmpty()) {
+            Bandwidth bottleneck = null;
+            int bottleneckShare = Integer.MAX_VALUE;
+            List<Flow> bottleneckUsers = null;
+            for (Bandwidth bandwidth : unfilled) {
+                List<Flow> users = getUnfixedUsers(bandwidth);
+                int share = users.isEmpty() ? Integer.MAX_VALUE : bandwidth.remaining / users.size();
+                if (bottleneck == null || share < bottleneckShare) {
+                    bottleneck = bandwidth;
+                    bottleneckShare = share;
+                    bottleneckUsers = users;
+                }
+            }
+            unfilled.remove(bottleneck);
+            if (bottleneckUsers.isEmpty()) {
+                continue;
+            }
+
+            // Every other bandwidth of these flows can fit the share
+            for (Flow flow : bottleneckUsers) {
+                setRate(flow, bottleneckShare);
+            }
+
+            // Hand out what is left, as long as it fits every bandwidth used
+            for (Flow flow : bottleneckUsers) {
+                if (bottleneck.remaining <= 0) {
+                    break;
+                }
+                if (flow.limits.stream().allMatch(bandwidth -> bandwidth.remaining > 0)) {
+                    setRate(flow, flow.rate + 1);
+                }
+            }
+        }
+
+        Allocation allocation = new Allocation();
+        for (Flow flow : flows) {
+            if (flow.rate == null) {
+                continue;
+            }
+            flow.filesInTransfer.forEach(fit -> allocation.fileRates.put(fit, flow.rate));
+            if (flow.stripedTransfer != null) {
+                allocation.stripeRates.computeIfAbsent(flow.stripedTransfer, k -> new HashMap<>())
+                        .put(flow.stripeSender, flow.rate);
+            }
+        }
+        return allocation;
+    }
+
+    private static void addUploadLimit(Flow flow, BlackoutObject sender,
+            HashMap<BandwidthControl, Bandwidth> uploads) {
+        BandwidthControl senderBC = sender.getBandwidthControl();
+        if (senderBC != null && senderBC.getMaxUploadBandwidth() >= 0) {
+            addLimit(flow, uploads.computeIfAbsent(senderBC, bc -> new Bandwidth(bc.getMaxUploadBandwidth())));
+        }
+    }
+
+    private static void addDownloadLimit(Flow flow, BlackoutObject reciever,
+            HashMap<BandwidthControl, Bandwidth> downloads) {
+        BandwidthControl receiverBC = reciever.getBandwidthControl();
+        if (receiverBC != null && receiverBC.getMaxDownloadBandwidth() >= 0) {
+            addLimit(flow, downloads.computeIfAbsent(receiverBC, bc -> new Bandwidth(bc.getMaxDownloadBandwidth())));
+        }
+    }
+
+    private static void addLimit(Flow flow, Bandwidth bandwidth) {
+        flow.limits.add(bandwidth);
+        bandwidth.users.add(flow);
+    }
+
+    private static List<Flow> getUnfixedUsers(Bandwidth bandwidth) {
+        List<Flow> users = new ArrayList<>();
+        for (Flow flow : bandwidth.users) {
+            if (flow.rate == null) {
+                users.add(flow);
+            }
+        }
+        return users;
+    }
+
+    private static void setRate(Flow flow, int rate) {
+        int increase = rate - (flow.rate == null ? 0 : flow.rate);
+        for (Bandwidth bandwidth : flow.limits) {
+            bandwidth.remaining -= increase;
+        }
+        flow.rate = rate;
+    }
+}
@@ -32,8 +32,19 @@ public class FileTransferException extends Exception {
      * be able to use for new devices.
      */
     public static class VirtualFileNoBandwidthException extends FileTransferException {
-        public VirtualFileNoBandwidthException(String message) {
-            super(message);
+        private final String id;
+
+        /**
+         * @param id of the blackout object without bandwidth, also used as the
+         *           message
+         */
+        public VirtualFileNoBandwidthException(String id) {
+            super(id);
+            this.id = id;
+        }
+
+        public String getId() {
+            return this.id;
         }
     }
 
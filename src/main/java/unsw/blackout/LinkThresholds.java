@@ -0,0 +1,101 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.utils.LinkGeometry;
+
+import java.util.HashMap;
+
+/**
+ * Whether a blackout object can directly communicate with another only depends
+ * on the angle between them once their heights and the source's range are
+ * known. LinkThresholds remembers the largest such angle for every height
+ * pair it has seen, so most link checks are a single angle comparison. Angles
+ * too close to the largest angle are checked with BlackoutHelpers instead, so
+ * the results are always the same as BlackoutHelpers.isCommunicable.
+ */
+public class LinkThresholds {
+    // Angles closer than this to the threshold are checked exactly
+    private static final double ANGLE_MARGIN = 1e-6;
+    // Devices going up slopes keep changing height, so the cache is bounded
+    private static final int MAX_CACHED_THRESHOLDS = 4096;
+
+    private HashMap<ThresholdKey, Double> thresholds = new HashMap<>();
+
+    /**
+     * Checks whether the source blackout object can communicate with the target
+     * blackout object such that they are not the same blackout object
+     *
+     * @param source
+     * @param target
+     * @return whether two different blackout objects can communicate
+     */
+    public boolean isCommunicable(BlackoutObject source, BlackoutObject target) {
+        if (!BlackoutHelpers.supportsEachOther(source, target)) {
+            return false;
+        }
+
+        double threshold = getThreshold(source, target);
+        if (!Double.isNaN(threshold)) {
+            double separation = LinkGeometry.getSeparation(source.getPosition(), target.getPosition());
+            if (separation < threshold - ANGLE_MARGIN) {
+                return true;
+            } else if (separation > threshold + ANGLE_MARGIN) {
+                return false;
+            }
+        }
+        return BlackoutHelpers.isCommunicable(source, target);
+    }
+
+    private double getThreshold(BlackoutObject source, BlackoutObject target) {
+        ThresholdKey key = new ThresholdKey(source.getHeight(), source.doesOrbit(), target.getHeight(),
+                target.doesOrbit(), source.getRange());
+        Double threshold = this.thresholds.get(key);
+        if (threshold == null) {
+            if (this.thresholds.size() >= MAX_CACHED_THRESHOLDS) {
+                this.thresholds.clear();
+            }
+            threshold = LinkGeometry.getMaxLinkSeparation(source.getHeight(), source.doesOrbit(), target.getHeight(),
+                    target.doesOrbit(), source.getRange());
+            this.thresholds.put(key, threshold);
+        }
+        return threshold;
+    }
+
+    private static final class ThresholdKey {
+        private final double sourceHeight;
+        private final boolean sourceOrbits;
+        private final double targetHeight;
+        private final boolean targetOrbits;
+        private final int range;
+
+        private ThresholdKey(double sourceHeight, boolean sourceOrbits, double targetHeight, boolean targetOrbits,
+                int range) {
+            this.sourceHeight = sourceHeight;
+            this.sourceOrbits = sourceOrbits;
+            this.targetHeight = targetHeight;
+            this.targetOrbits = targetOrbits;
+            this.range = range;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ThresholdKey)) {
+                return false;
+            }
+            ThresholdKey other = (ThresholdKey) obj;
+            return Double.compare(this.sourceHeight, other.sourceHeight) == 0
+                    && this.sourceOrbits == other.sourceOrbits
+                    && Double.compare(this.targetHeight, other.targetHeight) == 0
+                    && this.targetOrbits == other.targetOrbits && this.range == other.range;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Double.hashCode(this.sourceHeight);
+            hash = 31 * hash + Boolean.hashCode(this.sourceOrbits);
+            hash = 31 * hash + Double.hashCode(this.targetHeight);
+            hash = 31 * hash + Boolean.hashCode(this.targetOrbits);
+            return 31 * hash + this.range;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+import unsw.utils.Angle;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * MoveTask moves a range of blackout objects, splitting the range in half
+ * until it is small enough to move on one thread. Each blackout object's
+ * movement only depends on its own move behavior, so the blackout objects can
+ * be moved in any order. The positions before moving are recorded so slopes
+ * can be checked afterwards.
+ */
+public class MoveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private static final int LEAF_SIZE = 256;
+
+    private List<BlackoutObject> blackoutObjects;
+    private Angle[] oldPositions;
+    private int minutes;
+    private int start;
+    private int end;
+
+    /**
+     * Creates a task to move every blackout object in the list
+     *
+     * @param blackoutObjects blackout objects to move
+     * @param oldPositions    filled with the position of each blackout object
+     *                        before moving, same length as blackoutObjects
+     * @param minutes         number of minutes to move for
+     */
+    public MoveTask(List<BlackoutObject> blackoutObjects, Angle[] oldPositions, int minutes) {
+        this(blackoutObjects, oldPositions, minutes, 0, blackoutObjects.size());
+    }
+
+    private MoveTask(List<BlackoutObject> blackoutObjects, Angle[] oldPositions, int minutes, int start, int end) {
+        this.blackoutObjects = blackoutObjects;
+        this.oldPositions = oldPositions;
+        this.minutes = minutes;
+        this.start = start;
+        this.end = end;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.end - this.start <= LEAF_SIZE) {
+            moveRange();
+            return;
+        }
+
+        int middle = (this.start + this.end) / 2;
+        invokeAll(new MoveTask(this.blackoutObjects, this.oldPositions, this.minutes, this.start, middle),
+                new MoveTask(this.blackoutObjects, this.oldPositions, this.minutes, middle, this.end));
+    }
+
+    /**
+     * Moves every blackout object in this task's range on the current thread
+     */
+    public void moveRange() {
+        for (int i = this.start; i < this.end; i++) {
+            BlackoutObject blackoutObject = this.blackoutObjects.get(i);
+            this.oldPositions[i] = blackoutObject.getPosition();
+            if (this.minutes == 1) {
+                blackoutObject.doMove();
+            } else {
+                blackoutObject.advance(this.minutes);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package unsw.blackout;
+
+import unsw.entities.BlackoutObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * SectorIndex buckets blackout objects by the angle they are at around
+ * Jupiter, so neighbour searches only look at the sectors that could be
+ * within the range of the source instead of every blackout object. It should
+ * be rebuilt whenever the blackout objects move.
+ */
+public class SectorIndex {
+    private static final double ANGLE_SLACK = 1e-9;
+    private static final double HEIGHT_SLACK = 1e-6;
+
+    private int numSectors;
+    private double sectorWidth;
+    private List<List<BlackoutObject>> sectors = new ArrayList<>();
+    private List<BlackoutObject> all = new ArrayList<>();
+    private double minHeight = Double.MAX_VALUE;
+
+    /**
+     * Creates a new index over the given blackout objects
+     *
+     * @param blackoutObjects blackout objects to index
+     * @param numSectors      how many equal angular sectors to split the orbit
+     *                        into
+     */
+    public SectorIndex(Collection<BlackoutObject> blackoutObjects, int numSectors) {
+        this.numSectors = numSectors;
+        this.sectorWidth = 2 * Math.PI / numSectors;
+        for (int i = 0; i < numSectors; i++) {
+            this.sectors.add(new ArrayList<>());
+        }
+
+        for (BlackoutObject blackoutObject : blackoutObjects) {
+            this.sectors.get(getSector(blackoutObject.getPosition().toRadians())).add(blackoutObject);
+            this.all.add(blackoutObject);
+            this.minHeight = Math.min(this.minHeight, blackoutObject.getHeight());
+        }
+    }
+
+    /**
+     * Gets the blackout objects that could be within the given range of the
+     * source. Every blackout object that is within range is returned, but some
+     * returned blackout objects may still be out of range.
+     *
+     * @param source blackout object searching for neighbours
+     * @param range  max distance from the source
+     * @return candidate blackout objects
+     */
+    public List<BlackoutObject> getCandidates(BlackoutObject source, double range) {
+        double height = source.getHeight();
+        double maxSeparation = getMaxSeparation(height, Math.min(height, this.minHeight), range) + ANGLE_SLACK;
+
+        int sectorsEachSide = (int) Math.ceil(maxSeparation / this.sectorWidth) + 1;
+        if (maxSeparation >= Math.PI || 2 * sectorsEachSide + 1 >= this.numSectors) {
+            return filterByHeight(this.all, height, range);
+        }
+
+        List<BlackoutObject> candidates = new ArrayList<>();
+        int centre = getSector(source.getPosition().toRadians());
+        for (int offset = -sectorsEachSide; offset <= sectorsEachSide; offset++) {
+            int sector = Math.floorMod(centre + offset, this.numSectors);
+            candidates.addAll(filterByHeight(this.sectors.get(sector), height, range));
+        }
+        return candidates;
+    }
+
+    private List<BlackoutObject> filterByHeight(List<BlackoutObject> blackoutObjects, double height, double range) {
+        List<BlackoutObject> filtered = new ArrayList<>();
+        for (BlackoutObject blackoutObject : blackoutObjects) {
+            // Two objects can never be closer than the difference of their heights
+            if (Math.abs(blackoutObject.getHeight() - height) <= range + HEIGHT_SLACK) {
+                filtered.add(blackoutObject);
+            }
+        }
+        return filtered;
+    }
+
+    private int getSector(double radians) {
+        double normalised = radians % (2 * Math.PI);
+        if (normalised < 0) {
+            normalised += 2 * Math.PI;
+        }
+        return Math.min((int) (normalised / this.sectorWidth), this.numSectors - 1);
+    }
+
+    /**
+     * Gets the largest angle between the source and any object at least
+     * minHeight from the centre of Jupiter such that they can be within range.
+     *
+     * @param height    height of the source
+     * @param minHeight lowest height of any other object
+     * @param range     max distance from the source
+     * @return max angular separation in radians
+     */
+    private static double getMaxSeparation(double height, double minHeight, double range) {
+        // Law of cosines with the other object as low as possible
+        double cos = (height * height + minHeight * minHeight - range * range) / (2 * height * minHeight);
+        double separation = Math.acos(Math.max(-1, Math.min(1, cos)));
+        if (height * Math.cos(separation) <= minHeight) {
+            return separation;
+        }
+        // Otherwise the closest point is the foot of the perpendicular from the source
+        return Math.asin(Math.min(1, range / height));
+    }
+}
@@ -0,0 +1,40 @@
+package unsw.blackout;
+
+/**
+ * StripeScheduler splits a file into stripes for senders with different
+ * transfer rates, so every sender finishes its stripe in about the same
+ * minute. A sender with twice the bandwidth gets a stripe twice as long.
+ */
+public class StripeScheduler {
+    /**
+     * Gets the size of the stripe each sender should send. The stripes are
+     * sized for the fewest minutes the senders need together, and the last
+     * senders get whatever is left, so some may get nothing.
+     *
+     * @param fileSize      number of bytes in the file
+     * @param transferRates bytes each sender sends every minute
+     * @return size of each sender's stripe, in the same order as the rates
+     */
+    public static int[] getStripeSizes(int fileSize, int[] transferRates) {
+        int[] stripeSizes = new int[transferRates.length];
+        long totalRate = 0;
+        for (int transferRate : transferRates) {
+            totalRate += Math.max(0, transferRate);
+        }
+        if (transferRates.length == 0) {
+            return stripeSizes;
+        }
+        if (totalRate == 0) {
+            stripeSizes[0] = fileSize;
+            return stripeSizes;
+        }
+
+        long minutes = (fileSize + totalRate - 1) / totalRate;
+        int bytesLeft = fileSize;
+        for (int i = 0; i < transferRates.length; i++) {
+            stripeSizes[i] = (int) Math.min(bytesLeft, Math.max(0, transferRates[i]) * minutes);
+            bytesLeft -= stripeSizes[i];
+        }
+        return stripeSizes;
+    }
+}
@@ -4,7 +4,7 @@ import unsw.entities.filemanagement.FileStorage;
 import unsw.entities.other.BandwidthControl;
 import unsw.interfaces.MoveBehavior;
 import unsw.utils.Angle;
-import java.util.HashMap;
+import unsw.utils.MathsHelper;
 
 /**
  * BlackoutObjects are objects that can be created via the blackout
@@ -13,15 +13,16 @@ import java.util.HashMap;
  * and satellites, each with different characteristics. Most devices and
  * satellites can send/recieve/store files.
  * 
+ * Positions, heights, speeds, ranges and supported types are kept in an
+ * EntityStore rather than in the object itself. A new blackout object has a
+ * store of its own until it is moved into the store of a controller.
+ * 
  * @author Kingston Chan
  */
 public abstract class BlackoutObject {
     private String id;
-    private int range;
-    private Angle position;
-    private double height;
-    private int linearSpeed;
-    private HashMap<String, Boolean> objectsSupported = new HashMap<>();
+    private EntityStore store;
+    private int handle;
     private FileStorage fileStorage;
     private BandwidthControl bandwidthControl;
     private MoveBehavior moveBehavior;
@@ -32,15 +33,35 @@ public abstract class BlackoutObject {
      * or DeviceFactory class to create a new satellite/device.
      */
     public BlackoutObject(MoveBehavior moveBehavior) {
-        objectsSupported.put("HandheldDevice", true);
-        objectsSupported.put("LaptopDevice", true);
-        objectsSupported.put("DesktopDevice", true);
-        objectsSupported.put("StandardSatellite", true);
-        objectsSupported.put("TeleportingSatellite", true);
-        objectsSupported.put("RelaySatellite", true);
+        this.store = new EntityStore(1);
+        this.handle = this.store.allocate();
         this.moveBehavior = moveBehavior;
     }
 
+    /**
+     * Moves the state of the blackout object into the given store, releasing
+     * its handle in the store it was in
+     * 
+     * @param store store to keep the state of the blackout object in
+     */
+    public void moveTo(EntityStore store) {
+        if (store == this.store) {
+            return;
+        }
+        int newHandle = store.copyOf(this.store, this.handle);
+        this.store.release(this.handle);
+        this.store = store;
+        this.handle = newHandle;
+    }
+
+    /**
+     * Moves the state of the blackout object out of the store it is in and
+     * into a store of its own, e.g. once it is removed from a controller
+     */
+    public void detach() {
+        moveTo(new EntityStore(1));
+    }
+
     public String getId() {
         return id;
     }
@@ -56,19 +77,22 @@ public abstract class BlackoutObject {
      * @return max range of blackout object
      */
     public int getRange() {
-        return range;
+        return this.store.getRange(this.handle);
     }
 
     public void setRange(int range) {
-        this.range = range;
+        this.store.setRange(this.handle, range);
     }
 
     public Angle getPosition() {
-        return position;
+        if (!this.store.hasPosition(this.handle)) {
+            return null;
+        }
+        return Angle.fromRadians(this.store.getRadians(this.handle));
     }
 
     public void setPosition(Angle position) {
-        this.position = position;
+        this.store.setRadians(this.handle, position.toRadians());
     }
 
     /**
@@ -77,7 +101,7 @@ public abstract class BlackoutObject {
      * @return height in km from centre of Jupiter
      */
     public double getHeight() {
-        return height;
+        return this.store.getHeight(this.handle);
     }
 
     /**
@@ -86,11 +110,61 @@ public abstract class BlackoutObject {
      * @param height in km from the centre of Jupiter
      */
     public void setHeight(double height) {
-        this.height = height;
+        this.store.setHeight(this.handle, height);
     }
 
     public void addToHeight(double changeInHeight) {
-        this.height += changeInHeight;
+        this.store.setHeight(this.handle, this.store.getHeight(this.handle) + changeInHeight);
+    }
+
+    /**
+     * Gets the x coordinate of the blackout object with the centre of Jupiter
+     * as the origin
+     * 
+     * @return x coordinate in km
+     */
+    public double getX() {
+        return this.store.getX(this.handle);
+    }
+
+    /**
+     * Gets the y coordinate of the blackout object with the centre of Jupiter
+     * as the origin
+     * 
+     * @return y coordinate in km
+     */
+    public double getY() {
+        return this.store.getY(this.handle);
+    }
+
+    /**
+     * Gets the squared distance from the centre of Jupiter, worked out from the
+     * x and y coordinates
+     * 
+     * @return squared distance in km^2
+     */
+    public double getRadiusSquared() {
+        return this.store.getRadiusSquared(this.handle);
+    }
+
+    /**
+     * Gets the x coordinate that is used when checking what the blackout
+     * object is visible to. Devices are treated as slightly above the surface.
+     * 
+     * @return x coordinate in km
+     */
+    public double getVisibilityX() {
+        return doesOrbit() ? getX() : this.store.getCos(this.handle) * (MathsHelper.RADIUS_OF_JUPITER + 50);
+    }
+
+    /**
+     * Gets the y coordinate that is used when checking what the blackout
+     * object is visible to. Devices are treated as slightly above the surface.
+     * 
+     * @return y coordinate in km
+     */
+    public double getVisibilityY() {
+        return doesOrbit() ? getY() : this.store.getSin(this.handle) * (MathsHelper.RADIUS_OF_JUPITER + 50);
     }
 
     /**
@@ -99,7 +173,7 @@ public abstract class BlackoutObject {
      * @param linearSpeed speed of blackout object
      */
     public void setLinearSpeed(int linearSpeed) {
-        this.linearSpeed = linearSpeed;
+        this.store.setLinearSpeed(this.handle, linearSpeed);
     }
 
     /**
@@ -108,7 +182,7 @@ public abstract class BlackoutObject {
      * @return linear speed of blackout object
      */
     public int getLinearSpeed() {
-        return this.linearSpeed;
+        return this.store.getLinearSpeed(this.handle);
     }
 
     /**
@@ -118,7 +192,7 @@ public abstract class BlackoutObject {
      * @param type of blackout object
      */
     public void removeSupport(String objectType) {
-        this.objectsSupported.replace(objectType, false);
+        this.store.removeSupport(this.handle, objectType);
     }
 
     /**
@@ -130,7 +204,7 @@ public abstract class BlackoutObject {
      * @return whether blackout object supports other blackout object
      */
     public boolean doesSupport(String blackoutObjectType) {
-        return this.objectsSupported.get(blackoutObjectType);
+        return this.store.doesSupport(this.handle, blackoutObjectType);
     }
 
     /**
@@ -174,7 +248,18 @@ public abstract class BlackoutObject {
      * Simulates the movement of a blackout object for one minute.
      */
     public void doMove() {
-        this.position = moveBehavior.move(this.position, this.linearSpeed / this.height);
+        setPosition(moveBehavior.move(getPosition(), getLinearSpeed() / getHeight()));
+    }
+
+    /**
+     * Simulates the movement of a blackout object for the given number of
+     * minutes. This is only the same as calling doMove for every minute if the
+     * height of the blackout object does not change in between.
+     * 
+     * @param minutes number of minutes to move for
+     */
+    public void advance(int minutes) {
+        setPosition(moveBehavior.advance(getPosition(), getLinearSpeed() / getHeight(), minutes));
     }
 
     /**
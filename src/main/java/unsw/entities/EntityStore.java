@@ -0,0 +1,265 @@
+package unsw.entities;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * EntityStore keeps the state of blackout objects in parallel primitive
+ * arrays, indexed by an int handle, instead of in fields of each object. A
+ * blackout object is only a facade over its handle, so the positions, heights,
+ * speeds, ranges and supported types of every object in a simulation sit next
+ * to each other in memory.
+ *
+ * Handles of released objects are reused by the next object that is
+ * allocated.
+ */
+public class EntityStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final HashMap<String, Integer> TYPE_CODES = new HashMap<>();
+
+    static {
+        String[] types = { "HandheldDevice", "LaptopDevice", "DesktopDevice", "StandardSatellite",
+                "TeleportingSatellite", "RelaySatellite" };
+        for (int i = 0; i < types.length; i++) {
+            TYPE_CODES.put(types[i], i);
+        }
+    }
+
+    private int[] range;
+    private int[] linearSpeed;
+    private int[] unsupportedTypes; // Bitmask of type codes
+    private boolean[] hasPosition;
+    private double[] radians;
+    private double[] height;
+    private double[] cos;
+    private double[] sin;
+    private double[] x;
+    private double[] y;
+    private double[] radiusSquared;
+
+    private int numHandles = 0;
+    private int[] freeHandles = new int[0];
+    private int numFreeHandles = 0;
+
+    /**
+     * Creates an empty entity store
+     */
+    public EntityStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Creates an empty entity store with room for the given number of objects
+     * before its arrays grow
+     *
+     * @param capacity number of objects
+     */
+    public EntityStore(int capacity) {
+        this.range = new int[capacity];
+        this.linearSpeed = new int[capacity];
+        this.unsupportedTypes = new int[capacity];
+        this.hasPosition = new boolean[capacity];
+        this.radians = new double[capacity];
+        this.height = new double[capacity];
+        this.cos = new double[capacity];
+        this.sin = new double[capacity];
+        this.x = new double[capacity];
+        this.y = new double[capacity];
+        this.radiusSquared = new double[capacity];
+    }
+
+    /**
+     * Allocates a handle for a new object, with every value cleared
+     *
+     * @return handle of the object
+     */
+    public int allocate() {
+        int handle;
+        if (this.numFreeHandles > 0) {
+            handle = this.freeHandles[--this.numFreeHandles];
+        } else {
+            if (this.numHandles == this.range.length) {
+                grow(Math.max(1, this.numHandles * 2));
+            }
+            handle = this.numHandles++;
+        }
+
+        this.range[handle] = 0;
+        this.linearSpeed[handle] = 0;
+        this.unsupportedTypes[handle] = 0;
+        this.hasPosition[handle] = false;
+        this.radians[handle] = 0;
+        this.height[handle] = 0;
+        this.cos[handle] = 0;
+        this.sin[handle] = 0;
+        this.x[handle] = 0;
+        this.y[handle] = 0;
+        this.radiusSquared[handle] = 0;
+        return handle;
+    }
+
+    /**
+     * Allocates a handle for an object and copies the values of an object in
+     * another store into it
+     *
+     * @param other  store the object is in
+     * @param handle handle of the object in the other store
+     * @return handle of the copy in this store
+     */
+    public int copyOf(EntityStore other, int handle) {
+        int copy = allocate();
+        this.range[copy] = other.range[handle];
+        this.linearSpeed[copy] = other.linearSpeed[handle];
+        this.unsupportedTypes[copy] = other.unsupportedTypes[handle];
+        this.hasPosition[copy] = other.hasPosition[handle];
+        this.radians[copy] = other.radians[handle];
+        this.height[copy] = other.height[handle];
+        this.cos[copy] = other.cos[handle];
+        this.sin[copy] = other.sin[handle];
+        this.x[copy] = other.x[handle];
+        this.y[copy] = other.y[handle];
+        this.radiusSquared[copy] = other.radiusSquared[handle];
+        return copy;
+    }
+
+    /**
+     * Releases the handle of an object so it can be reused. The handle must
+     * not be used afterwards.
+     *
+     * @param handle handle of the object
+     */
+    public void release(int handle) {
+        if (this.numFreeHandles == this.freeHandles.length) {
+            this.freeHandles = Arrays.copyOf(this.freeHandles, Math.max(1, this.freeHandles.length * 2));
+        }
+        this.freeHandles[this.numFreeHandles++] = handle;
+    }
+
+    /**
+     * Gets the number of objects that have a handle in this store
+     *
+     * @return number of objects
+     */
+    public int getNumObjects() {
+        return this.numHandles - this.numFreeHandles;
+    }
+
+    private void grow(int capacity) {
+        this.range = Arrays.copyOf(this.range, capacity);
+        this.linearSpeed = Arrays.copyOf(this.linearSpeed, capacity);
+        this.unsupportedTypes = Arrays.copyOf(this.unsupportedTypes, capacity);
+        this.hasPosition = Arrays.copyOf(this.hasPosition, capacity);
+        this.radians = Arrays.copyOf(this.radians, capacity);
+        this.height = Arrays.copyOf(this.height, capacity);
+        this.cos = Arrays.copyOf(this.cos, capacity);
+        this.sin = Arrays.copyOf(this.sin, capacity);
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.radiusSquared = Arrays.copyOf(this.radiusSquared, capacity);
+    }
+
+    private static int getTypeCode(String type) {
+        Integer typeCode = TYPE_CODES.get(type);
+        if (typeCode == null) {
+            throw new IllegalArgumentException("Unknown blackout object type: " + type);
+        }
+        return typeCode;
+    }
+
+    public int getRange(int handle) {
+        return this.range[handle];
+    }
+
+    public void setRange(int handle, int range) {
+        this.range[handle] = range;
+    }
+
+    public int getLinearSpeed(int handle) {
+        return this.linearSpeed[handle];
+    }
+
+    public void setLinearSpeed(int handle, int linearSpeed) {
+        this.linearSpeed[handle] = linearSpeed;
+    }
+
+    /**
+     * Checks whether the object supports the given type of blackout object
+     *
+     * @param handle handle of the object
+     * @param type   type of blackout object
+     * @return whether the object supports the type
+     */
+    public boolean doesSupport(int handle, String type) {
+        return (this.unsupportedTypes[handle] & (1 << getTypeCode(type))) == 0;
+    }
+
+    public void removeSupport(int handle, String type) {
+        this.unsupportedTypes[handle] |= 1 << getTypeCode(type);
+    }
+
+    public boolean hasPosition(int handle) {
+        return this.hasPosition[handle];
+    }
+
+    public double getRadians(int handle) {
+        return this.radians[handle];
+    }
+
+    public double getHeight(int handle) {
+        return this.height[handle];
+    }
+
+    /**
+     * Sets the position of the object and works out its coordinates again
+     *
+     * @param handle  handle of the object
+     * @param radians position of the object
+     */
+    public void setRadians(int handle, double radians) {
+        this.radians[handle] = radians;
+        this.hasPosition[handle] = true;
+        updateCoordinates(handle);
+    }
+
+    /**
+     * Sets the height of the object and works out its coordinates again
+     *
+     * @param handle handle of the object
+     * @param height height in km from the centre of Jupiter
+     */
+    public void setHeight(int handle, double height) {
+        this.height[handle] = height;
+        updateCoordinates(handle);
+    }
+
+    public double getCos(int handle) {
+        return this.cos[handle];
+    }
+
+    public double getSin(int handle) {
+        return this.sin[handle];
+    }
+
+    public double getX(int handle) {
+        return this.x[handle];
+    }
+
+    public double getY(int handle) {
+        return this.y[handle];
+    }
+
+    public double getRadiusSquared(int handle) {
+        return this.radiusSquared[handle];
+    }
+
+    private void updateCoordinates(int handle) {
+        if (!this.hasPosition[handle]) {
+            return;
+        }
+        this.cos[handle] = Math.cos(this.radians[handle]);
+        this.sin[handle] = Math.sin(this.radians[handle]);
+        this.x[handle] = this.cos[handle] * this.height[handle];
+        this.y[handle] = this.sin[handle] * this.height[handle];
+        this.radiusSquared[handle] = this.x[handle] * this.x[handle] + this.y[handle] * this.y[handle];
+    }
+}
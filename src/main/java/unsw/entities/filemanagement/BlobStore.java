@@ -0,0 +1,79 @@
+package unsw.entities.filemanagement;
+
+import java.util.HashMap;
+
+/**
+ * BlobStore keeps one copy of every distinct file content held by the file
+ * storages it is attached to. Files with the same content share the copy in
+ * the blob store, which is forgotten once no file refers to it anymore.
+ * Storage limits are still worked out per file storage.
+ */
+public class BlobStore {
+    private HashMap<String, Blob> blobs = new HashMap<>();
+    private long bytesStored = 0;
+
+    private static class Blob {
+        private String content;
+        private int references = 0;
+
+        private Blob(String content) {
+            this.content = content;
+        }
+    }
+
+    /**
+     * Adds a reference to the given content
+     *
+     * @param content of a file
+     * @return the stored copy of the content, which should be used instead of
+     *         the given content
+     */
+    public String retain(String content) {
+        Blob blob = this.blobs.get(content);
+        if (blob == null) {
+            blob = new Blob(content);
+            this.blobs.put(content, blob);
+            this.bytesStored += content.length();
+        }
+
+        blob.references++;
+        return blob.content;
+    }
+
+    /**
+     * Removes a reference to the given content, forgetting the content if
+     * nothing refers to it anymore
+     *
+     * @param content of a file that was retained
+     */
+    public void release(String content) {
+        Blob blob = this.blobs.get(content);
+        if (blob == null) {
+            return;
+        }
+
+        blob.references--;
+        if (blob.references <= 0) {
+            this.blobs.remove(content);
+            this.bytesStored -= content.length();
+        }
+    }
+
+    /**
+     * Gets the number of distinct contents stored
+     *
+     * @return number of blobs
+     */
+    public int getNumBlobs() {
+        return this.blobs.size();
+    }
+
+    /**
+     * Gets the number of bytes taken up by the distinct contents
+     *
+     * @return bytes stored
+     */
+    public long getBytesStored() {
+        return this.bytesStored;
+    }
+}
@@ -1,6 +1,8 @@
 package unsw.entities.filemanagement;
 
 import unsw.entities.BlackoutObject;
+import unsw.interfaces.TransferProgress;
+import unsw.utils.SimulationClock;
 
 /**
  * This class helps store information about files that are in transfer
@@ -13,27 +15,77 @@ import unsw.entities.BlackoutObject;
  * 
  * @author Kingston Chan
  */
-public class FileInTransfer {
+public class FileInTransfer implements TransferProgress {
     private BlackoutObject senderId;
     private BlackoutObject recieverId;
     private FileInfo originalFile;
     private FileInfo transferFile;
     private int transferRate = 0;
+    private long sequenceNumber;
+    // Upload shared with files in transfer to other recievers, null if the
+    // transfer has an upload of its own
+    private MulticastUpload multicastUpload = null;
+
+    // While resumed, the transfer file keeps the data it had at resumedMinute,
+    // after that it has resumedBytes bytes of resumedContent plus transferRate
+    // bytes every minute
+    private SimulationClock clock;
+    private boolean resumed = false;
+    private long resumedMinute;
+    private String heldContent;
+    private int heldBytes;
+    private String resumedContent;
+    private int resumedBytes;
 
     /**
-     * Creates a new file in transfer
+     * Creates a new file in transfer. The transfer is paused until resume is
+     * called.
      * 
-     * @param senderId     source of the file transfer
-     * @param recieverId   target of the file transfer
-     * @param originalFile original file from source
-     * @param transferFile file being transfered to target
+     * @param senderId       source of the file transfer
+     * @param recieverId     target of the file transfer
+     * @param originalFile   original file from source
+     * @param transferFile   file being transfered to target
+     * @param clock          clock of the simulation the transfer is in
+     * @param sequenceNumber order the transfer was started in, transfers are
+     *                       done in this order every minute
      */
     public FileInTransfer(BlackoutObject senderId, BlackoutObject recieverId, FileInfo originalFile,
-            FileInfo transferFile) {
+            FileInfo transferFile, SimulationClock clock, long sequenceNumber) {
         this.senderId = senderId;
         this.recieverId = recieverId;
         this.originalFile = originalFile;
         this.transferFile = transferFile;
+        this.clock = clock;
+        this.sequenceNumber = sequenceNumber;
+    }
+
+    public long getSequenceNumber() {
+        return this.sequenceNumber;
+    }
+
+    /**
+     * Sets the upload this transfer shares with transfers of the same file to
+     * other recievers
+     * 
+     * @param multicastUpload shared upload
+     */
+    public void setMulticastUpload(MulticastUpload multicastUpload) {
+        this.multicastUpload = multicastUpload;
+    }
+
+    public MulticastUpload getMulticastUpload() {
+        return this.multicastUpload;
+    }
+
+    /**
+     * Indicates the transfer has finished with the sender's upload. This
+     * should be called once, when the transfer finishes.
+     * 
+     * @return whether the sender's upload should end, which is not the case
+     *         while other recievers still share it
+     */
+    public boolean finishUpload() {
+        return this.multicastUpload == null || this.multicastUpload.finishReciever();
     }
 
     /**
@@ -89,6 +141,93 @@ public class FileInTransfer {
         this.transferRate = transferRate;
     }
 
+    /**
+     * Gets the number of minutes of transferring at the transfer rate
+     * until the transfer is complete
+     * 
+     * @return minutes until completed, 0 if the transfer rate is not set
+     */
+    public long getMinutesUntilCompleted() {
+        if (this.transferRate <= 0) {
+            return 0;
+        }
+        long bytesLeft = this.originalFile.getFileDataSize() - this.transferFile.getFileDataSize();
+        return (bytesLeft + this.transferRate - 1) / this.transferRate;
+    }
+
+    /**
+     * Lets the transfer file keep transferring at the transfer rate every minute
+     * after the given minute, without the transfer being done every minute.
+     * The original file's current content is what is transferred.
+     * 
+     * @param minute minute the transfer file's current data is for
+     */
+    public void resume(long minute) {
+        pause(minute);
+
+        this.resumed = true;
+        this.resumedMinute = minute;
+        this.heldContent = this.transferFile.getContent();
+        this.heldBytes = this.transferFile.getFileDataSize();
+        this.resumedContent = this.originalFile.getFileData();
+        this.resumedBytes = this.heldBytes;
+        this.transferFile.setTransferProgress(this);
+    }
+
+    /**
+     * Stops the transfer file from transferring on its own, leaving it with the
+     * data it had at the given minute. Transfers should be paused before they
+     * are done by startTransfer.
+     * 
+     * @param minute minute to stop at, which is at most the current minute
+     */
+    public void pause(long minute) {
+        if (!this.resumed) {
+            return;
+        }
+
+        this.transferFile.setTransferProgress(null);
+        this.transferFile.setFileDataPrefix(getContent(minute), getTransferredBytes(minute));
+        this.resumed = false;
+    }
+
+    /**
+     * Gets the minute the transfer will complete in if it stays in range. This
+     * is only known once the transfer has been resumed with a transfer rate.
+     * 
+     * @return minute the transfer completes in
+     */
+    public long getCompletionMinute() {
+        long bytesLeft = this.resumedContent.length() - this.resumedBytes;
+        long minutesLeft = (bytesLeft + this.transferRate - 1) / this.transferRate;
+        return this.resumedMinute + Math.max(1, minutesLeft);
+    }
+
+    @Override
+    public String getContent() {
+        return getContent(this.clock.getMinute());
+    }
+
+    @Override
+    public int getTransferredBytes() {
+        return getTransferredBytes(this.clock.getMinute());
+    }
+
+    private String getContent(long minute) {
+        if (minute <= this.resumedMinute) {
+            return this.heldContent;
+        }
+        return this.resumedContent;
+    }
+
+    private int getTransferredBytes(long minute) {
+        if (minute <= this.resumedMinute) {
+            return this.heldBytes;
+        }
+        long transferredBytes = this.resumedBytes + (long) this.transferRate * (minute - this.resumedMinute);
+        return (int) Math.min(transferredBytes, this.resumedContent.length());
+    }
+
     /**
      * Transfer the original file's content to the transfer file
      * according to the transfer rate.
@@ -96,15 +235,12 @@ public class FileInTransfer {
      * @return whether the transfer has been completed.
      */
     public boolean startTransfer() {
-        String originalFileData = this.originalFile.getFileData();
-
         int maxDataSizeForTransfer = Math.min(
-                this.transferFile.getFileData().length() + this.transferRate,
+                this.transferFile.getFileDataSize() + this.transferRate,
                 this.originalFile.getFileDataSize());
 
-        String newTransferedString = originalFileData.substring(0, maxDataSizeForTransfer);
-
-        this.transferFile.setFileData(newTransferedString);
+        // The transfer file only keeps track of how much of the original it has
+        this.transferFile.setFileDataPrefix(this.originalFile.getContent(), maxDataSizeForTransfer);
 
         if (isCompleted()) {
             this.transferFile.completeTransfer();
@@ -1,5 +1,8 @@
 package unsw.entities.filemanagement;
 
+import unsw.interfaces.TransferProgress;
+import unsw.utils.FileDataHelpers;
+
 /**
  * This class is used to store information about the file
  * - File name
@@ -11,9 +14,15 @@ package unsw.entities.filemanagement;
  */
 public class FileInfo {
     private String fileName;
+    // The file data is the first fileDataSize characters of content, so a file
+    // in transfer can share the content of the file it is copied from
+    private String content;
+    private int fileDataSize;
     private String fileData;
     private int fileSize;
     private boolean inTransfer;
+    private BlobStore blobStore = null;
+    private TransferProgress transferProgress = null;
 
     /**
      * Creates an instance to store information about a file
@@ -25,7 +34,7 @@ public class FileInfo {
      */
     public FileInfo(String fileName, String fileData, int fileSize, boolean inTransfer) {
         this.fileName = fileName;
-        this.fileData = fileData;
+        this.setFileData(fileData);
         this.inTransfer = inTransfer;
         this.fileSize = fileSize;
     }
@@ -40,11 +49,16 @@ public class FileInfo {
     }
 
     /**
-     * Gets the contents of the file
+     * Gets the contents of the file. If the file only holds part of its
+     * content, that part is copied out the first time it is asked for.
      * 
      * @return contents of the file
      */
     public String getFileData() {
+        updateFromTransferProgress();
+        if (this.fileData == null) {
+            this.fileData = this.content.substring(0, this.fileDataSize);
+        }
         return this.fileData;
     }
 
@@ -55,7 +69,42 @@ public class FileInfo {
      * @return current number of bytes of file content
      */
     public int getFileDataSize() {
-        return this.fileData.length();
+        updateFromTransferProgress();
+        return this.fileDataSize;
+    }
+
+    /**
+     * Sets where the file data comes from while the file is in transfer. The
+     * file data is then worked out from the transfer progress whenever it is
+     * needed. Setting it does not update the file data.
+     * 
+     * @param transferProgress progress of the transfer, null to stop the file
+     *                         data from changing on its own
+     */
+    public void setTransferProgress(TransferProgress transferProgress) {
+        this.transferProgress = transferProgress;
+    }
+
+    /**
+     * Gets the content the file data is a prefix of, without copying it
+     * 
+     * @return content of the file
+     */
+    String getContent() {
+        updateFromTransferProgress();
+        return this.content;
+    }
+
+    private void updateFromTransferProgress() {
+        if (this.transferProgress == null) {
+            return;
+        }
+
+        String content = this.transferProgress.getContent();
+        int transferredBytes = this.transferProgress.getTransferredBytes();
+        if (content != this.content || transferredBytes != this.fileDataSize) {
+            setFileDataPrefix(content, transferredBytes);
+        }
     }
 
     /**
@@ -73,7 +122,57 @@ public class FileInfo {
      * @param fileData new file data
      */
     public void setFileData(String fileData) {
-        this.fileData = fileData;
+        setContent(fileData);
+        this.fileDataSize = fileData.length();
+        this.fileData = this.content;
+    }
+
+    /**
+     * Sets the file data to the first given number of characters of the given
+     * content without copying them
+     * 
+     * @param content      content the file data is a prefix of
+     * @param fileDataSize number of characters of content in the file data
+     */
+    public void setFileDataPrefix(String content, int fileDataSize) {
+        if (fileDataSize == content.length()) {
+            setFileData(content);
+            return;
+        }
+        setContent(content);
+        this.fileDataSize = fileDataSize;
+        this.fileData = null;
+    }
+
+    private void setContent(String content) {
+        if (this.blobStore != null && content != this.content) {
+            // Retained before releasing so content shared with the old content is kept
+            String storedContent = this.blobStore.retain(content);
+            this.blobStore.release(this.content);
+            content = storedContent;
+        }
+        this.content = content;
+    }
+
+    /**
+     * Sets the blob store the content of the file is kept in, moving the
+     * content out of the previous blob store if there was one
+     * 
+     * @param blobStore blob store to keep the content in, null to keep it in
+     *                  the file
+     */
+    void setBlobStore(BlobStore blobStore) {
+        if (this.blobStore != null) {
+            this.blobStore.release(this.content);
+        }
+
+        this.blobStore = blobStore;
+        if (blobStore != null) {
+            this.content = blobStore.retain(this.content);
+            if (this.fileData != null && this.fileDataSize == this.content.length()) {
+                this.fileData = this.content;
+            }
+        }
     }
 
     /**
@@ -103,15 +202,49 @@ public class FileInfo {
     }
 
     /**
-     * Remove "t" bytes from given file starting from given starting index
+     * Checks whether the file data starts with the file data of another file,
+     * without copying either of them
+     * 
+     * @param prefix file whose file data may be a prefix
+     * @return whether the file data starts with the other file's file data
+     */
+    public boolean startsWith(FileInfo prefix) {
+        String content = this.getContent();
+        String prefixContent = prefix.getContent();
+        int prefixSize = prefix.getFileDataSize();
+        if (prefixSize > this.getFileDataSize()) {
+            return false;
+        }
+        return content == prefixContent || content.regionMatches(0, prefixContent, 0, prefixSize);
+    }
+
+    /**
+     * Remove "t" bytes from the file data of the given file starting from
+     * given starting index
+     * 
+     * @param originalFile file that was being uploaded/downloaded
+     * @param startIndex   index at which to start removing "t" bytes
+     */
+    public void removeTBytes(FileInfo originalFile, int startIndex) {
+        removeTBytes(originalFile.getContent(), originalFile.getFileDataSize(), startIndex);
+    }
+
+    /**
+     * Remove "t" bytes from the first given number of characters of the given
+     * content starting from given starting index. If there are no "t" bytes to
+     * remove, the content is shared rather than copied.
      * 
-     * @param file         file to remove "t" bytes from
-     * @param originalData original data that was being uploaded/downloaded
+     * @param content      content the original data is a prefix of
+     * @param originalSize number of characters of content in the original data
      * @param startIndex   index at which to start removing "t" bytes
      */
-    public void removeTBytes(String originalData, int startIndex) {
-        this.setFileData(
-                originalData.substring(0, startIndex) + originalData.substring(startIndex).replaceAll("t", ""));
+    public void removeTBytes(String content, int originalSize, int startIndex) {
+        int firstIndex = content.indexOf('t', startIndex);
+        if (firstIndex < 0 || firstIndex >= originalSize) {
+            this.setFileDataPrefix(content, originalSize);
+        } else {
+            this.setFileData(FileDataHelpers.removeCharacter(content, originalSize, 't', firstIndex));
+        }
         this.updateFileSize();
         this.completeTransfer();
     }
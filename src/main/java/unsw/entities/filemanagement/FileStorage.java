@@ -16,6 +16,7 @@ public class FileStorage {
     private int bytesUsed;
     private int maxBytesStored; // If set to -1, it has no limit
     private int maxFilesStored; // If set to -1, it has no limit
+    private BlobStore blobStore = null;
 
     /**
      * Creates a new file storage to manage files e.g.
@@ -78,6 +79,9 @@ public class FileStorage {
     public void addFile(FileInfo file) {
         this.bytesUsed += file.getFileSize();
         this.files.put(file.getFileName(), file);
+        if (this.blobStore != null) {
+            file.setBlobStore(this.blobStore);
+        }
     }
 
     /**
@@ -93,10 +97,42 @@ public class FileStorage {
         }
 
         this.bytesUsed -= this.getFile(fileName).getFileDataSize();
-        this.files.remove(fileName);
+        this.files.remove(fileName).setBlobStore(null);
         return true;
     }
 
+    /**
+     * Removes a file that was only partly transferred, freeing all the bytes
+     * that were set aside for it when its transfer started
+     * 
+     * @param fileName in a string
+     * @return boolean true on successfully removing file, otherwise false
+     */
+    public boolean removePartialFile(String fileName) {
+        if (!this.files.containsKey(fileName)) {
+            return false;
+        }
+
+        this.bytesUsed -= this.getFile(fileName).getFileSize();
+        this.files.remove(fileName).setBlobStore(null);
+        return true;
+    }
+
+    /**
+     * Sets the blob store that the content of every file in the file storage
+     * is kept in, so files with the same content in different file storages
+     * share it. Bytes used are still counted per file storage.
+     * 
+     * @param blobStore blob store to keep content in, null to keep content in
+     *                  the files themselves
+     */
+    public void setBlobStore(BlobStore blobStore) {
+        this.blobStore = blobStore;
+        for (FileInfo file : this.files.values()) {
+            file.setBlobStore(blobStore);
+        }
+    }
+
     /**
      * Gets the file corresponding to file name from the file storage
      * 
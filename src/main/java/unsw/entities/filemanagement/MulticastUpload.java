@@ -0,0 +1,33 @@
+package unsw.entities.filemanagement;
+
+/**
+ * MulticastUpload is the one upload a sender uses to send a file to several
+ * recievers at once. Each reciever has its own file in transfer, and the
+ * upload ends once every one of them has finished.
+ */
+public class MulticastUpload {
+    private int numRecieversLeft;
+
+    /**
+     * Creates an upload shared by the given number of recievers
+     *
+     * @param numRecievers number of recievers
+     */
+    public MulticastUpload(int numRecievers) {
+        this.numRecieversLeft = numRecievers;
+    }
+
+    /**
+     * Indicates one of the recievers has finished
+     *
+     * @return whether it was the last reciever, so the upload should end
+     */
+    public boolean finishReciever() {
+        this.numRecieversLeft--;
+        return this.numRecieversLeft == 0;
+    }
+
+    public int getNumRecieversLeft() {
+        return this.numRecieversLeft;
+    }
+}
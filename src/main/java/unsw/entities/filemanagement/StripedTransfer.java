@@ -0,0 +1,251 @@
+package unsw.entities.filemanagement;
+
+import unsw.entities.BlackoutObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * StripedTransfer sends one file to a reciever from several senders that all
+ * have the same file. The file is split into stripes, byte ranges that are
+ * each sent by one of the senders, so the senders transfer in parallel. The
+ * reciever's transfer file holds the stripes reassembled, as far as they have
+ * been transferred from the start of the file without gaps.
+ */
+public class StripedTransfer {
+    private BlackoutObject reciever;
+    private FileInfo transferFile;
+    private String content;
+    private List<Stripe> stripes = new ArrayList<>();
+    // Stripes left for each sender, sent one after the other
+    private LinkedHashMap<BlackoutObject, ArrayDeque<Stripe>> stripesLeft = new LinkedHashMap<>();
+    private HashMap<BlackoutObject, Integer> transferRates = new HashMap<>();
+
+    /**
+     * A byte range of the file sent by one sender
+     */
+    public static class Stripe {
+        private int start;
+        private int end;
+        private int transferredBytes = 0;
+
+        private Stripe(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return this.start;
+        }
+
+        public int getEnd() {
+            return this.end;
+        }
+
+        public int getTransferredBytes() {
+            return this.transferredBytes;
+        }
+
+        public boolean isCompleted() {
+            return this.start + this.transferredBytes == this.end;
+        }
+    }
+
+    /**
+     * Creates a striped transfer without any stripes
+     *
+     * @param reciever     target of the transfer
+     * @param transferFile file the stripes are reassembled into
+     * @param content      content of the file being sent
+     */
+    public StripedTransfer(BlackoutObject reciever, FileInfo transferFile, String content) {
+        this.reciever = reciever;
+        this.transferFile = transferFile;
+        this.content = content;
+    }
+
+    public BlackoutObject getReciever() {
+        return this.reciever;
+    }
+
+    public FileInfo getTransferFile() {
+        return this.transferFile;
+    }
+
+    /**
+     * Gets every stripe, including those already transferred
+     *
+     * @return stripes ordered by where they start
+     */
+    public List<Stripe> getStripes() {
+        List<Stripe> stripes = new ArrayList<>(this.stripes);
+        stripes.sort(Comparator.comparingInt(Stripe::getStart));
+        return stripes;
+    }
+
+    /**
+     * Gets the senders that still have stripes to send
+     *
+     * @return senders in the order they were added
+     */
+    public List<BlackoutObject> getSenders() {
+        return new ArrayList<>(this.stripesLeft.keySet());
+    }
+
+    /**
+     * Adds a sender with the rate it transfers at
+     *
+     * @param sender       source of some of the stripes
+     * @param transferRate bytes sent by the sender every minute
+     */
+    public void addSender(BlackoutObject sender, int transferRate) {
+        this.stripesLeft.put(sender, new ArrayDeque<>());
+        this.transferRates.put(sender, transferRate);
+    }
+
+    public int getTransferRate(BlackoutObject sender) {
+        return this.transferRates.getOrDefault(sender, 0);
+    }
+
+    /**
+     * Changes the rate a sender transfers at, e.g. when bandwidth is shared
+     * fairly
+     *
+     * @param sender       sender with stripes left
+     * @param transferRate bytes sent by the sender every minute
+     */
+    public void setTransferRate(BlackoutObject sender, int transferRate) {
+        this.transferRates.put(sender, transferRate);
+    }
+
+    /**
+     * Adds a stripe for a sender to send after its other stripes
+     *
+     * @param sender added sender
+     * @param start  index of the first byte of the stripe
+     * @param end    index after the last byte of the stripe
+     */
+    public void addStripe(BlackoutObject sender, int start, int end) {
+        Stripe stripe = new Stripe(start, end);
+        this.stripes.add(stripe);
+        this.stripesLeft.get(sender).add(stripe);
+    }
+
+    /**
+     * Sends a minute's worth of stripes from the sender at its transfer rate.
+     * The sender is removed once it has no stripes left.
+     *
+     * @param sender sender with stripes left
+     */
+    public void transfer(BlackoutObject sender) {
+        ArrayDeque<Stripe> stripesLeft = this.stripesLeft.get(sender);
+        int bytesLeft = this.transferRates.get(sender);
+        while (bytesLeft > 0 && !stripesLeft.isEmpty()) {
+            Stripe stripe = stripesLeft.peek();
+            int bytes = Math.min(bytesLeft, stripe.end - stripe.start - stripe.transferredBytes);
+            stripe.transferredBytes += bytes;
+            bytesLeft -= bytes;
+            if (stripe.isCompleted()) {
+                stripesLeft.poll();
+            }
+        }
+
+        if (stripesLeft.isEmpty()) {
+            removeSender(sender);
+        }
+    }
+
+    /**
+     * Removes a sender that can no longer send, handing what it has not sent
+     * to the remaining sender with the highest transfer rate that can still
+     * send
+     *
+     * @param sender  sender with stripes left
+     * @param canSend checks whether another sender can still send
+     * @return whether the stripes could be handed over, they cannot if none of
+     *         the other senders can send
+     */
+    public boolean reassignStripes(BlackoutObject sender, Predicate<BlackoutObject> canSend) {
+        ArrayDeque<Stripe> stripesLeft = this.stripesLeft.get(sender);
+        removeSender(sender);
+
+        BlackoutObject fastestSender = null;
+        for (BlackoutObject other : this.stripesLeft.keySet()) {
+            if (canSend.test(other)
+                    && (fastestSender == null || getTransferRate(other) > getTransferRate(fastestSender))) {
+                fastestSender = other;
+            }
+        }
+        if (fastestSender == null) {
+            return false;
+        }
+
+        for (Stripe stripe : stripesLeft) {
+            // What was sent of the stripe stays, the rest becomes a new stripe
+            int sentEnd = stripe.start + stripe.transferredBytes;
+            addStripe(fastestSender, sentEnd, stripe.end);
+            stripe.end = sentEnd;
+        }
+        this.stripes.removeIf(stripe -> stripe.start == stripe.end);
+        return true;
+    }
+
+    private void removeSender(BlackoutObject sender) {
+        this.stripesLeft.remove(sender);
+        this.transferRates.remove(sender);
+    }
+
+    /**
+     * Gets the number of bytes transferred from the start of the file without
+     * gaps
+     *
+     * @return number of bytes that can be reassembled
+     */
+    public int getContiguousBytes() {
+        int contiguousBytes = 0;
+        for (Stripe stripe : getStripes()) {
+            if (stripe.start != contiguousBytes) {
+                break;
+            }
+            contiguousBytes += stripe.transferredBytes;
+            if (!stripe.isCompleted()) {
+                break;
+            }
+        }
+        return contiguousBytes;
+    }
+
+    /**
+     * Checks whether every stripe has been transferred
+     *
+     * @return whether the transfer is complete
+     */
+    public boolean isCompleted() {
+        return this.stripesLeft.isEmpty() && getContiguousBytes() == this.content.length();
+    }
+
+    /**
+     * Completes the transfer straight away, the same as a file in transfer
+     * whose sender teleports. The rest of the file after the bytes that can be
+     * reassembled is recieved without its "t" bytes.
+     */
+    public void completeWithoutTBytes() {
+        this.transferFile.removeTBytes(this.content, this.content.length(), getContiguousBytes());
+    }
+
+    /**
+     * Reassembles the stripes transferred so far into the transfer file,
+     * completing it if every stripe has been transferred
+     */
+    public void reassemble() {
+        this.transferFile.setFileDataPrefix(this.content, getContiguousBytes());
+        if (isCompleted()) {
+            this.transferFile.completeTransfer();
+        }
+    }
+}
@@ -13,4 +13,9 @@ public class Immobile implements MoveBehavior {
     public Angle move(Angle position, double angularVelocity) {
         return position;
     }
+
+    @Override
+    public Angle advance(Angle position, double angularVelocity, int minutes) {
+        return position;
+    }
 }
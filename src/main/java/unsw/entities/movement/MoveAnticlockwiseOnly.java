@@ -17,4 +17,9 @@ public class MoveAnticlockwiseOnly implements MoveBehavior {
     public Angle move(Angle position, double angularVelocity) {
         return MovingHelpers.moveUsingDirection(MathsHelper.ANTI_CLOCKWISE, position, angularVelocity);
     }
+
+    @Override
+    public Angle advance(Angle position, double angularVelocity, int minutes) {
+        return MovingHelpers.advanceUsingDirection(MathsHelper.ANTI_CLOCKWISE, position, angularVelocity, minutes);
+    }
 }
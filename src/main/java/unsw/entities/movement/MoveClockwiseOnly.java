@@ -17,4 +17,9 @@ public class MoveClockwiseOnly implements MoveBehavior {
     public Angle move(Angle position, double angularVelocity) {
         return MovingHelpers.moveUsingDirection(MathsHelper.CLOCKWISE, position, angularVelocity);
     }
+
+    @Override
+    public Angle advance(Angle position, double angularVelocity, int minutes) {
+        return MovingHelpers.advanceUsingDirection(MathsHelper.CLOCKWISE, position, angularVelocity, minutes);
+    }
 }
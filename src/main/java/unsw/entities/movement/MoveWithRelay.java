@@ -51,4 +51,49 @@ public class MoveWithRelay implements MoveBehavior {
         setDirectionFastestToRegion(currentPosition);
         return MovingHelpers.moveUsingDirection(direction, currentPosition, angularVelocity);
     }
+
+    /**
+     * Moves one stretch between turns at a time. Until the position is
+     * within a minute of where it could turn, every minute moves the same
+     * way in the same direction, so those minutes are moved at once.
+     */
+    @Override
+    public Angle advance(Angle position, double angularVelocity, int minutes) {
+        while (minutes > 0) {
+            if (!inRelayRange(position)) {
+                setDirectionFastestToRegion(position);
+            }
+
+            long minutesBeforeTurn = angularVelocity > 0
+                    ? (long) (getRadiansBeforeTurn(position) / angularVelocity) - 1
+                    : 0;
+            if (minutesBeforeTurn < 1) {
+                position = move(position, angularVelocity);
+                minutes--;
+                continue;
+            }
+
+            int stretch = (int) Math.min(minutes, minutesBeforeTurn);
+            position = MovingHelpers.advanceUsingDirection(direction, position, angularVelocity, stretch);
+            minutes -= stretch;
+        }
+        return position;
+    }
+
+    /**
+     * Gets how far the position can move in its direction before leaving the
+     * region, or before reaching the region if it is outside it
+     * 
+     * @param position current position
+     * @return distance in radians
+     */
+    private double getRadiansBeforeTurn(Angle position) {
+        double radians = position.toRadians();
+        if (this.direction == MathsHelper.CLOCKWISE) {
+            double boundary = Math.toRadians(inRelayRange(position) ? 140 : 190);
+            return radians - boundary;
+        }
+        double boundary = Math.toRadians(inRelayRange(position) ? 190 : 140);
+        return radians <= boundary ? boundary - radians : boundary + 2 * Math.PI - radians;
+    }
 }
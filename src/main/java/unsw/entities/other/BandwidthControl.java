@@ -47,6 +47,24 @@ public class BandwidthControl {
         return this.maxUploadBandwidth / this.numUploads;
     }
 
+    /**
+     * Gets the total upload bandwidth, no matter how many uploads there are
+     *
+     * @return max upload bandwidth, -1 if unlimited
+     */
+    public int getMaxUploadBandwidth() {
+        return this.maxUploadBandwidth;
+    }
+
+    /**
+     * Gets the total download bandwidth, no matter how many downloads there are
+     *
+     * @return max download bandwidth, -1 if unlimited
+     */
+    public int getMaxDownloadBandwidth() {
+        return this.maxDownloadBandwidth;
+    }
+
     /**
      * Get the maximum transfer rate between an uploader and downloader. The one
      * calling this method should be the uploader. Either the downloader or uploader
@@ -93,6 +111,24 @@ public class BandwidthControl {
         return false;
     }
 
+    /**
+     * Takes back a download that was initiated but never started, e.g. because
+     * the uploader had no bandwidth. Unlike endDownload this frees the
+     * bandwidth straight away, since no transfer rate was worked out with it.
+     */
+    public void cancelDownload() {
+        this.numDownloads--;
+    }
+
+    /**
+     * Takes back an upload that was initiated but never started, e.g. because
+     * the downloader had no bandwidth. Unlike endUpload this frees the
+     * bandwidth straight away, since no transfer rate was worked out with it.
+     */
+    public void cancelUpload() {
+        this.numUploads--;
+    }
+
     public void endDownload() {
         finishedDownloads++;
     }
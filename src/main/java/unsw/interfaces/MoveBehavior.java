@@ -18,4 +18,21 @@ public interface MoveBehavior {
      * @return objects new position
      */
     public Angle move(Angle position, double angularVelocity);
+
+    /**
+     * Simulate the movement of the object for the given number of minutes
+     * and return its new position. The result must be exactly the same as
+     * calling move once for every minute.
+     * 
+     * @param position        object's current position
+     * @param angularVelocity object's angular velocity
+     * @param minutes         number of minutes to move for
+     * @return objects new position
+     */
+    public default Angle advance(Angle position, double angularVelocity, int minutes) {
+        for (int i = 0; i < minutes; i++) {
+            position = move(position, angularVelocity);
+        }
+        return position;
+    }
 }
@@ -0,0 +1,23 @@
+package unsw.interfaces;
+
+/**
+ * Files in transfer hold a prefix of the content being sent. The size of the
+ * prefix can be worked out whenever it is needed, so files do not have to be
+ * updated every minute.
+ */
+public interface TransferProgress {
+    /**
+     * Gets the content being transferred
+     * 
+     * @return content the transferred data is a prefix of
+     */
+    public String getContent();
+
+    /**
+     * Gets how many bytes of the content have been transferred as of the
+     * current minute
+     * 
+     * @return number of bytes transferred
+     */
+    public int getTransferredBytes();
+}
@@ -0,0 +1,90 @@
+package unsw.response.models;
+
+import java.util.Map;
+
+/**
+ * Represents the files waiting for bandwidth before they can be sent and how
+ * long files have waited.
+ */
+public final class AdmissionQueueResponse {
+    /**
+     * The number of files waiting.
+     */
+    private final int depth;
+
+    /**
+     * The number of files waiting for the bandwidth of each blackout object.
+     */
+    private final Map<String, Integer> depthById;
+
+    /**
+     * How long the file that has waited the longest has waited so far.
+     */
+    private final long oldestWaitMinutes;
+
+    /**
+     * The number of files that started after waiting.
+     */
+    private final long numAdmitted;
+
+    /**
+     * The number of files that could no longer be sent after waiting.
+     */
+    private final long numDropped;
+
+    /**
+     * How long files that started waited on average.
+     */
+    private final double averageWaitMinutes;
+
+    /**
+     * How long the file that waited the longest before starting waited.
+     */
+    private final long maxWaitMinutes;
+
+    public AdmissionQueueResponse(int depth, Map<String, Integer> depthById, long oldestWaitMinutes,
+            long numAdmitted, long numDropped, double averageWaitMinutes, long maxWaitMinutes) {
+        this.depth = depth;
+        this.depthById = depthById;
+        this.oldestWaitMinutes = oldestWaitMinutes;
+        this.numAdmitted = numAdmitted;
+        this.numDropped = numDropped;
+        this.averageWaitMinutes = averageWaitMinutes;
+        this.maxWaitMinutes = maxWaitMinutes;
+    }
+
+    public final int getDepth() {
+        return depth;
+    }
+
+    public final Map<String, Integer> getDepthById() {
+        return depthById;
+    }
+
+    public final long getOldestWaitMinutes() {
+        return oldestWaitMinutes;
+    }
+
+    public final long getNumAdmitted() {
+        return numAdmitted;
+    }
+
+    public final long getNumDropped() {
+        return numDropped;
+    }
+
+    public final double getAverageWaitMinutes() {
+        return averageWaitMinutes;
+    }
+
+    public final long getMaxWaitMinutes() {
+        return maxWaitMinutes;
+    }
+
+    @Override
+    public String toString() {
+        return "AdmissionQueueResponse [depth=" + depth + ", depthById=" + depthById + ", oldestWaitMinutes="
+                + oldestWaitMinutes + ", numAdmitted=" + numAdmitted + ", numDropped=" + numDropped
+                + ", averageWaitMinutes=" + averageWaitMinutes + ", maxWaitMinutes=" + maxWaitMinutes + "]";
+    }
+}
@@ -0,0 +1,108 @@
+package unsw.response.models;
+
+/**
+ * Represents a file being delivered to a destination by storing it on
+ * satellites along the way.
+ */
+public final class DeliveryResponse {
+    /**
+     * The filename for the file.
+     */
+    private final String filename;
+
+    /**
+     * The id of the device/satellite the file started at.
+     */
+    private final String fromId;
+
+    /**
+     * The id of the device/satellite the file is delivered to.
+     */
+    private final String toId;
+
+    /**
+     * The id of the device/satellite that currently has the whole file.
+     */
+    private final String holderId;
+
+    /**
+     * Has the file reached its destination yet?
+     */
+    private final boolean delivered;
+
+    /**
+     * Can the file no longer be delivered?
+     */
+    private final boolean failed;
+
+    /**
+     * The number of hops the file has taken.
+     */
+    private final int numHops;
+
+    /**
+     * The number of bytes sent over all hops.
+     */
+    private final long bytesMoved;
+
+    /**
+     * The number of minutes it took to deliver the file, -1 if not delivered.
+     */
+    private final long latency;
+
+    public DeliveryResponse(String filename, String fromId, String toId, String holderId, boolean delivered,
+            boolean failed, int numHops, long bytesMoved, long latency) {
+        this.filename = filename;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.holderId = holderId;
+        this.delivered = delivered;
+        this.failed = failed;
+        this.numHops = numHops;
+        this.bytesMoved = bytesMoved;
+        this.latency = latency;
+    }
+
+    public final String getFilename() {
+        return filename;
+    }
+
+    public final String getFromId() {
+        return fromId;
+    }
+
+    public final String getToId() {
+        return toId;
+    }
+
+    public final String getHolderId() {
+        return holderId;
+    }
+
+    public final boolean isDelivered() {
+        return delivered;
+    }
+
+    public final boolean isFailed() {
+        return failed;
+    }
+
+    public final int getNumHops() {
+        return numHops;
+    }
+
+    public final long getBytesMoved() {
+        return bytesMoved;
+    }
+
+    public final long getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "DeliveryResponse [filename=" + filename + ", fromId=" + fromId + ", toId=" + toId + ", holderId="
+                + holderId + ", delivered=" + delivered + ", failed=" + failed + ", numHops=" + numHops
+                + ", bytesMoved=" + bytesMoved + ", latency=" + latency + "]";
+    }
+}
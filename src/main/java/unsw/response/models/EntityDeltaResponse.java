@@ -0,0 +1,80 @@
+package unsw.response.models;
+
+import java.util.List;
+import java.util.Map;
+
+import unsw.utils.Angle;
+
+/**
+ * Represents what changed about a device or satellite since the previous
+ * frame. Only files that were added or changed are included. Files that are
+ * new, or whose transfer completed, have their data, and the rest only have
+ * their progress.
+ */
+public final class EntityDeltaResponse {
+    private final String id;
+    private final Angle position;
+    private final double height;
+    private final String type;
+
+    /**
+     * Files that were added or finished transferring since the previous frame.
+     */
+    private final Map<String, FileInfoResponse> addedFiles;
+
+    /**
+     * Progress of the files in transfer that changed since the previous frame.
+     */
+    private final Map<String, FileProgressResponse> files;
+
+    /**
+     * Names of the files removed since the previous frame.
+     */
+    private final List<String> removedFiles;
+
+    public EntityDeltaResponse(String id, Angle position, double height, String type,
+            Map<String, FileInfoResponse> addedFiles, Map<String, FileProgressResponse> files,
+            List<String> removedFiles) {
+        this.id = id;
+        this.position = position;
+        this.height = height;
+        this.type = type;
+        this.addedFiles = addedFiles;
+        this.files = files;
+        this.removedFiles = removedFiles;
+    }
+
+    public final String getDeviceId() {
+        return id;
+    }
+
+    public final Angle getPosition() {
+        return position;
+    }
+
+    public final double getHeight() {
+        return height;
+    }
+
+    public final String getType() {
+        return type;
+    }
+
+    public final Map<String, FileInfoResponse> getAddedFiles() {
+        return addedFiles;
+    }
+
+    public final Map<String, FileProgressResponse> getFiles() {
+        return files;
+    }
+
+    public final List<String> getRemovedFiles() {
+        return removedFiles;
+    }
+
+    @Override
+    public String toString() {
+        return "EntityDeltaResponse [addedFiles=" + addedFiles + ", files=" + files + ", height=" + height + ", id=" + id + ", position=" + position
+                + ", removedFiles=" + removedFiles + ", type=" + type + "]";
+    }
+}
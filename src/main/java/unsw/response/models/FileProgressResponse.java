@@ -0,0 +1,55 @@
+package unsw.response.models;
+
+/**
+ * Represents how much of a file has been transferred, without its data.
+ */
+public final class FileProgressResponse {
+    /**
+     * The filename for the file.
+     */
+    private final String filename;
+
+    /**
+     * The number of bytes of the file currently transferred.
+     */
+    private final int bytesTransferred;
+
+    /**
+     * The final size for the file.
+     */
+    private final int fileSize;
+
+    /**
+     * Has transfer for this file been completed yet?
+     */
+    private final boolean hasTransferCompleted;
+
+    public FileProgressResponse(String filename, int bytesTransferred, int fileSize, boolean hasTransferCompleted) {
+        this.filename = filename;
+        this.bytesTransferred = bytesTransferred;
+        this.fileSize = fileSize;
+        this.hasTransferCompleted = hasTransferCompleted;
+    }
+
+    public final String getFilename() {
+        return filename;
+    }
+
+    public final int getBytesTransferred() {
+        return bytesTransferred;
+    }
+
+    public final int getFileSize() {
+        return fileSize;
+    }
+
+    public final boolean hasTransferCompleted() {
+        return hasTransferCompleted;
+    }
+
+    @Override
+    public String toString() {
+        return "FileProgressResponse [bytesTransferred=" + bytesTransferred + ", fileSize=" + fileSize
+                + ", filename=" + filename + ", hasTransferCompleted=" + hasTransferCompleted + "]";
+    }
+}
@@ -0,0 +1,49 @@
+package unsw.response.models;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Represents the devices and satellites that changed in a minute of the
+ * simulation, compared to the previous frame.
+ */
+public final class SimulationDeltaResponse {
+    /**
+     * Devices and satellites that were added, with all of their files.
+     */
+    private final Map<String, EntityInfoResponse> added;
+
+    /**
+     * Devices and satellites whose position, height or files changed.
+     */
+    private final Map<String, EntityDeltaResponse> changed;
+
+    /**
+     * Ids of the devices and satellites that were removed.
+     */
+    private final List<String> removed;
+
+    public SimulationDeltaResponse(Map<String, EntityInfoResponse> added, Map<String, EntityDeltaResponse> changed,
+            List<String> removed) {
+        this.added = added;
+        this.changed = changed;
+        this.removed = removed;
+    }
+
+    public final Map<String, EntityInfoResponse> getAdded() {
+        return added;
+    }
+
+    public final Map<String, EntityDeltaResponse> getChanged() {
+        return changed;
+    }
+
+    public final List<String> getRemoved() {
+        return removed;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationDeltaResponse [added=" + added + ", changed=" + changed + ", removed=" + removed + "]";
+    }
+}
@@ -0,0 +1,80 @@
+package unsw.utils;
+
+/**
+ * Versions of the visibility and distance checks in MathsHelper that take
+ * points which have already been converted to euclidean coordinates, so the
+ * trigonometry is not redone on every check. The results are exactly the same
+ * as the MathsHelper versions given the same coordinates.
+ */
+public final class CartesianHelpers {
+    // Squared distances this close to the squared range are checked with a sqrt
+    private static final double RANGE_GUARD = 1e-12;
+
+    private CartesianHelpers() {
+    }
+
+    /**
+     * Determine if the point b is visible from the point a, i.e. the line
+     * between them does not go through Jupiter.
+     *
+     * @param ax             x coordinate of a
+     * @param ay             y coordinate of a
+     * @param aRadiusSquared ax * ax + ay * ay
+     * @param bx             x coordinate of b
+     * @param by             y coordinate of b
+     * @return whether the points are visible to each other
+     */
+    public static boolean isVisible(double ax, double ay, double aRadiusSquared, double bx, double by) {
+        // See MathsHelper.isVisible for how this quadratic is formed
+        double a = (bx - ax) * (bx - ax) + (by - ay) * (by - ay);
+        double b = 2 * (ax * (bx - ax) + ay * (by - ay));
+        double c = aRadiusSquared - MathsHelper.RADIUS_OF_JUPITER * MathsHelper.RADIUS_OF_JUPITER;
+
+        double det = b * b - 4 * a * c;
+        if (det <= 0)
+            return true;
+
+        double sqrtDet = Math.sqrt(det);
+        double tPos = (-b + sqrtDet) / (2 * a);
+        double tNeg = (-b - sqrtDet) / (2 * a);
+        return !((0 <= tPos && tPos <= 1) || (0 <= tNeg && tNeg <= 1));
+    }
+
+    /**
+     * Gets the squared distance between two points
+     *
+     * @param ax x coordinate of the first point
+     * @param ay y coordinate of the first point
+     * @param bx x coordinate of the second point
+     * @param by y coordinate of the second point
+     * @return squared distance
+     */
+    public static double getDistanceSquared(double ax, double ay, double bx, double by) {
+        return (ax - bx) * (ax - bx) + (ay - by) * (ay - by);
+    }
+
+    /**
+     * Checks whether two points are within the given range of each other. This
+     * agrees with comparing MathsHelper.getDistance against the range, but only
+     * takes a sqrt when the squared distance is too close to the squared range
+     * to tell.
+     *
+     * @param ax    x coordinate of the first point
+     * @param ay    y coordinate of the first point
+     * @param bx    x coordinate of the second point
+     * @param by    y coordinate of the second point
+     * @param range max distance between the points
+     * @return whether the distance between the points is at most range
+     */
+    public static boolean isWithinRange(double ax, double ay, double bx, double by, double range) {
+        double distanceSquared = getDistanceSquared(ax, ay, bx, by);
+        double rangeSquared = range * range;
+        if (distanceSquared <= rangeSquared) {
+            return true;
+        }
+        if (distanceSquared > rangeSquared * (1 + RANGE_GUARD)) {
+            return false;
+        }
+        return Math.sqrt(distanceSquared) <= range;
+    }
+}
@@ -0,0 +1,51 @@
+package unsw.utils;
+
+/**
+ * Helper functions to modify the contents of files without regular
+ * expressions or intermediate copies.
+ */
+public class FileDataHelpers {
+    /**
+     * Removes every occurrence of a character from the data, starting from the
+     * given index. Characters before the index are kept as they are. The data
+     * is only gone through once and is returned as is if there is nothing to
+     * remove.
+     * 
+     * @param data       data to remove the character from
+     * @param character  character to remove
+     * @param startIndex index at which to start removing the character
+     * @return data without the character from startIndex onwards
+     */
+    public static String removeCharacter(String data, char character, int startIndex) {
+        int firstIndex = data.indexOf(character, startIndex);
+        if (firstIndex < 0) {
+            return data;
+        }
+        return removeCharacter(data, data.length(), character, firstIndex);
+    }
+
+    /**
+     * Removes every occurrence of a character from the first given number of
+     * characters of the data, starting from the given index. Characters before
+     * the index are kept as they are and the rest of the data is left out. The
+     * data is only gone through once.
+     * 
+     * @param data       data to remove the character from
+     * @param length     number of characters of data to keep
+     * @param character  character to remove
+     * @param startIndex index at which to start removing the character
+     * @return first length characters of data without the character from
+     *         startIndex onwards
+     */
+    public static String removeCharacter(String data, int length, char character, int startIndex) {
+        StringBuilder result = new StringBuilder(length);
+        result.append(data, 0, startIndex);
+        for (int i = startIndex; i < length; i++) {
+            char c = data.charAt(i);
+            if (c != character) {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package unsw.utils;
+
+/**
+ * Two objects at fixed heights around Jupiter are only visible and in range of
+ * each other when the angle between them is small enough. These helpers give
+ * that largest angle, so predictions can be made without checking every
+ * minute.
+ */
+public final class LinkGeometry {
+    // Devices are treated as slightly above the surface when checking visibility
+    private static final double DEVICE_VISIBILITY_HEIGHT = MathsHelper.RADIUS_OF_JUPITER + 50;
+
+    private LinkGeometry() {
+    }
+
+    /**
+     * Gets the angle between two positions, which is at most PI
+     *
+     * @param a
+     * @param b
+     * @return angular separation in radians
+     */
+    public static double getSeparation(Angle a, Angle b) {
+        double difference = Math.abs(a.toRadians() - b.toRadians()) % (2 * Math.PI);
+        return Math.min(difference, 2 * Math.PI - difference);
+    }
+
+    /**
+     * Gets the largest angle between a source and a target such that the target
+     * is visible from and in range of the source.
+     *
+     * @param sourceHeight height of the source from the centre of Jupiter
+     * @param sourceOrbits whether the source orbits Jupiter
+     * @param targetHeight height of the target from the centre of Jupiter
+     * @param targetOrbits whether the target orbits Jupiter
+     * @param range        max range of the source
+     * @return max angular separation in radians, NaN if it cannot be worked out
+     *         from the angle alone (i.e. an object is below the surface)
+     */
+    public static double getMaxLinkSeparation(double sourceHeight, boolean sourceOrbits, double targetHeight,
+            boolean targetOrbits, double range) {
+        double sourceVisibilityHeight = sourceOrbits ? sourceHeight : DEVICE_VISIBILITY_HEIGHT;
+        double targetVisibilityHeight = targetOrbits ? targetHeight : DEVICE_VISIBILITY_HEIGHT;
+        if (sourceVisibilityHeight < MathsHelper.RADIUS_OF_JUPITER
+                || targetVisibilityHeight < MathsHelper.RADIUS_OF_JUPITER) {
+            return Double.NaN;
+        }
+
+        // The line between them touches Jupiter when each end is at its tangent angle
+        double maxVisibleSeparation = Math.acos(MathsHelper.RADIUS_OF_JUPITER / sourceVisibilityHeight)
+                + Math.acos(MathsHelper.RADIUS_OF_JUPITER / targetVisibilityHeight);
+
+        // Law of cosines
+        double cos = (sourceHeight * sourceHeight + targetHeight * targetHeight - range * range)
+                / (2 * sourceHeight * targetHeight);
+        double maxRangeSeparation = Math.acos(Math.max(-1, Math.min(1, cos)));
+
+        return Math.min(maxVisibleSeparation, maxRangeSeparation);
+    }
+}
@@ -7,6 +7,14 @@ package unsw.utils;
  * @author Kingston Chan
  */
 public class MovingHelpers {
+    // Fewest minutes worth jumping instead of stepping. Stepping clockwise only
+    // subtracts, which is much quicker than the remainder taken anticlockwise.
+    private static final int MIN_MINUTES_TO_JUMP_CLOCKWISE = 64;
+    private static final int MIN_MINUTES_TO_JUMP_ANTICLOCKWISE = 16;
+    // Sign and exponent of a double, masking out the rest rounds it down to a
+    // power of two
+    private static final long EXPONENT_BITS = 0xFFF0000000000000L;
+
     /**
      * Calculates the new position after moving clockwise and makes sure
      * to wrap back to 359 degrees
@@ -49,4 +57,126 @@ public class MovingHelpers {
         return moveAnticlockwise(currentPos, angularVelocity);
     }
 
+    /**
+     * Calculates the new position after moving using the given direction for
+     * the given number of minutes. This rounds the same way as calling
+     * moveUsingDirection once per minute. While the position stays between
+     * two powers of two, every minute rounds the angular velocity to the same
+     * multiple of the spacing between doubles there, so those minutes are
+     * jumped over at once. The work is then proportional to the number of
+     * orbits rather than minutes.
+     * 
+     * @param direction       direction to move in
+     * @param currentPos      initial position
+     * @param angularVelocity angular velocity
+     * @param minutes         number of minutes to move for
+     * @return new position
+     */
+    public static Angle advanceUsingDirection(int direction, Angle currentPos, double angularVelocity, int minutes) {
+        int minMinutesToJump = direction == MathsHelper.CLOCKWISE ? MIN_MINUTES_TO_JUMP_CLOCKWISE
+                : MIN_MINUTES_TO_JUMP_ANTICLOCKWISE;
+        double minutesPerRadian = 1 / angularVelocity;
+
+        double position = currentPos.toRadians();
+        if (angularVelocity <= 0 || 2 * Math.PI * minutesPerRadian < minMinutesToJump) {
+            // Too few minutes fit in an orbit to be worth jumping
+            for (int i = 0; i < minutes; i++) {
+                position = moveOneMinute(direction, position, angularVelocity);
+            }
+            return Angle.fromRadians(position);
+        }
+
+        int minutesLeft = minutes;
+        while (minutesLeft > 0) {
+            // Roughly how many minutes until the position leaves its power of two
+            double powerOfTwo = Double.longBitsToDouble(Double.doubleToRawLongBits(position) & EXPONENT_BITS);
+            double room = direction == MathsHelper.CLOCKWISE ? position - powerOfTwo
+                    : Math.min(2 * powerOfTwo, 2 * Math.PI) - position;
+            long minutesToStep = (long) Math.min(room * minutesPerRadian, minutesLeft) + 1;
+
+            if (minutesToStep > minMinutesToJump) {
+                long jump = getMinutesToJump(direction, position, angularVelocity, minutesLeft);
+                if (jump >= minMinutesToJump) {
+                    double spacing = Math.ulp(position);
+                    long step = (long) Math.rint(angularVelocity / spacing);
+                    position = ((long) (position / spacing) + direction * jump * step) * spacing;
+                    minutesLeft -= jump;
+                    // The minute after a jump leaves the power of two
+                    minutesToStep = 1;
+                }
+            }
+
+            for (long i = Math.min(minutesLeft, minutesToStep); i > 0; i--) {
+                position = moveOneMinute(direction, position, angularVelocity);
+                minutesLeft--;
+            }
+        }
+        return Angle.fromRadians(position);
+    }
+
+    /**
+     * Moves the position for one minute, rounding the same way as
+     * moveUsingDirection
+     * 
+     * @param direction       direction to move in
+     * @param position        position in radians
+     * @param angularVelocity angular velocity
+     * @return new position in radians
+     */
+    private static double moveOneMinute(int direction, double position, double angularVelocity) {
+        if (direction == MathsHelper.CLOCKWISE) {
+            double newPosition = position - angularVelocity;
+            if (newPosition < 0) {
+                return (2 * Math.PI) + newPosition;
+            }
+            return newPosition;
+        }
+        return (position + angularVelocity) % (2 * Math.PI);
+    }
+
+    /**
+     * Gets the number of minutes the position can move for while staying
+     * between the same powers of two, without wrapping around. In those
+     * minutes moving rounds exactly to the position plus (or minus) the
+     * angular velocity rounded to the spacing between doubles at the position.
+     * 
+     * @param direction       direction to move in
+     * @param position        position in radians
+     * @param angularVelocity angular velocity
+     * @param maxMinutes      most minutes to jump
+     * @return number of minutes that can be jumped, 0 if the next minute has
+     *         to be stepped
+     */
+    private static long getMinutesToJump(int direction, double position, double angularVelocity, int maxMinutes) {
+        if (position < Double.MIN_NORMAL || angularVelocity <= 0) {
+            return 0;
+        }
+
+        // Positions in [2^e, 2^(e+1)) are the multiples of the spacing from
+        // 2^52 to 2^53 spacings
+        double spacing = Math.ulp(position);
+        double velocityInSpacings = angularVelocity / spacing;
+        if (velocityInSpacings >= (1L << 52) || velocityInSpacings % 1 == 0.5) {
+            // A tie rounds to even, which depends on the position
+            return 0;
+        }
+        long step = (long) Math.rint(velocityInSpacings);
+        if (step == 0) {
+            return 0;
+        }
+
+        long units = (long) (position / spacing);
+        long minutesToJump;
+        if (direction == MathsHelper.CLOCKWISE) {
+            // Stop a spacing above the power of two, since just below it
+            // rounds to half the spacing
+            minutesToJump = (units - (1L << 52) - 1) / step;
+        } else {
+            // Stop below the next power of two and below 2 pi, where the
+            // position wraps around
+            long limit = (long) Math.min((double) (1L << 53), (2 * Math.PI) / spacing);
+            minutesToJump = (limit - 1 - units) / step;
+        }
+        return Math.max(0, Math.min(maxMinutes, minutesToJump));
+    }
 }
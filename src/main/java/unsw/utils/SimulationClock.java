@@ -0,0 +1,28 @@
+package unsw.utils;
+
+/**
+ * SimulationClock counts the minutes that have been simulated, so things
+ * that change at a steady rate can be worked out for the current minute
+ * instead of being updated every minute.
+ */
+public class SimulationClock {
+    private long minute = 0;
+
+    /**
+     * Gets the current minute, which is the number of minutes simulated so far
+     * 
+     * @return current minute
+     */
+    public long getMinute() {
+        return this.minute;
+    }
+
+    /**
+     * Moves the clock forward by the given number of minutes
+     * 
+     * @param minutes number of minutes simulated
+     */
+    public void advance(int minutes) {
+        this.minute += minutes;
+    }
+}
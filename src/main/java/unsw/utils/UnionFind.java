@@ -0,0 +1,66 @@
+package unsw.utils;
+
+/**
+ * Disjoint set over the integers 0 to size - 1 using path compression
+ * and union by size.
+ */
+public class UnionFind {
+    private int[] parent;
+    private int[] size;
+
+    /**
+     * Creates a new union find where every element is in its own set
+     *
+     * @param size number of elements
+     */
+    public UnionFind(int size) {
+        this.parent = new int[size];
+        this.size = new int[size];
+        for (int i = 0; i < size; i++) {
+            this.parent[i] = i;
+            this.size[i] = 1;
+        }
+    }
+
+    /**
+     * Finds the representative element of the set containing the given element
+     *
+     * @param element
+     * @return representative of the set containing element
+     */
+    public int find(int element) {
+        int root = element;
+        while (this.parent[root] != root) {
+            root = this.parent[root];
+        }
+
+        while (this.parent[element] != root) {
+            int next = this.parent[element];
+            this.parent[element] = root;
+            element = next;
+        }
+        return root;
+    }
+
+    /**
+     * Merges the sets containing the two given elements
+     *
+     * @param a
+     * @param b
+     */
+    public void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA == rootB) {
+            return;
+        }
+
+        if (this.size[rootA] < this.size[rootB]) {
+            int temp = rootA;
+            rootA = rootB;
+            rootB = temp;
+        }
+        this.parent[rootB] = rootA;
+        this.size[rootA] += this.size[rootB];
+    }
+}
@@ -5,11 +5,22 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 
 import unsw.blackout.BlackoutController;
+import unsw.blackout.BlackoutHelpers;
+import unsw.blackout.LinkThresholds;
+import unsw.entities.BlackoutObject;
 import unsw.utils.Angle;
+import unsw.utils.CartesianHelpers;
+import unsw.utils.DeviceFactory;
+import unsw.utils.MathsHelper;
+import unsw.utils.SatelliteFactory;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static blackout.TestHelpers.assertListAreEqualIgnoringOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @TestInstance(value = Lifecycle.PER_CLASS)
 public class CommunicablesTests {
@@ -72,4 +83,138 @@ public class CommunicablesTests {
         assertListAreEqualIgnoringOrder(Arrays.asList("Satellite1", "Satellite2", "DeviceB", "DeviceA", "DeviceC"),
                 controller.communicableEntitiesInRange("Satellite3"));
     }
+
+    @Test
+    public void testCommunicablesUpdateAfterEntitiesChange() {
+        BlackoutController controller = new BlackoutController();
+
+        controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(150));
+        controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(136));
+        controller.createSatellite("Satellite1", "RelaySatellite", 82292, Angle.fromDegrees(169));
+        controller.createSatellite("Satellite2", "RelaySatellite", 104863, Angle.fromDegrees(240));
+        controller.createSatellite("Satellite3", "StandardSatellite", 92373, Angle.fromDegrees(327));
+
+        assertListAreEqualIgnoringOrder(Arrays.asList("Satellite1", "Satellite2", "DeviceB", "DeviceA"),
+                controller.communicableEntitiesInRange("Satellite3"));
+
+        controller.removeSatellite("Satellite1");
+        assertListAreEqualIgnoringOrder(Arrays.asList("Satellite2"),
+                controller.communicableEntitiesInRange("Satellite3"));
+        assertListAreEqualIgnoringOrder(Arrays.asList(), controller.communicableEntitiesInRange("DeviceA"));
+
+        controller.createSatellite("Satellite1", "RelaySatellite", 82292, Angle.fromDegrees(169));
+        controller.removeDevice("DeviceA");
+        assertListAreEqualIgnoringOrder(Arrays.asList("Satellite1", "Satellite2", "DeviceB"),
+                controller.communicableEntitiesInRange("Satellite3"));
+    }
+
+    @Test
+    public void testSpatialIndexMatchesBruteForce() {
+        BlackoutController bruteForce = new BlackoutController();
+        BlackoutController indexed = new BlackoutController();
+        bruteForce.setSpatialIndexThreshold(Integer.MAX_VALUE);
+        indexed.setSpatialIndexThreshold(0);
+
+        String[] satelliteTypes = { "StandardSatellite", "TeleportingSatellite", "RelaySatellite" };
+        String[] deviceTypes = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+        Random random = new Random(2511);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            String id = "Satellite" + i;
+            String type = satelliteTypes[random.nextInt(satelliteTypes.length)];
+            double height = 70000 + random.nextInt(400000);
+            Angle position = Angle.fromDegrees(random.nextInt(360));
+            bruteForce.createSatellite(id, type, height, position);
+            indexed.createSatellite(id, type, height, position);
+            ids.add(id);
+        }
+        for (int i = 0; i < 40; i++) {
+            String id = "Device" + i;
+            String type = deviceTypes[random.nextInt(deviceTypes.length)];
+            Angle position = Angle.fromDegrees(random.nextInt(360));
+            bruteForce.createDevice(id, type, position);
+            indexed.createDevice(id, type, position);
+            ids.add(id);
+        }
+
+        for (int minute = 0; minute < 10; minute++) {
+            for (String id : ids) {
+                assertListAreEqualIgnoringOrder(bruteForce.communicableEntitiesInRange(id),
+                        indexed.communicableEntitiesInRange(id));
+            }
+            bruteForce.simulate(7);
+            indexed.simulate(7);
+        }
+    }
+
+    @Test
+    public void testLinksUpdatedAfterTeleport() {
+        BlackoutController controller = new BlackoutController();
+        controller.setSpatialIndexThreshold(0);
+
+        controller.createDevice("DeviceA", "DesktopDevice", Angle.fromDegrees(151));
+        controller.createDevice("DeviceB", "DesktopDevice", Angle.fromDegrees(12));
+        controller.createSatellite("Satellite1", "TeleportingSatellite", 150015, Angle.fromDegrees(179.8));
+
+        assertListAreEqualIgnoringOrder(Arrays.asList("Satellite1"), controller.communicableEntitiesInRange("DeviceA"));
+        assertListAreEqualIgnoringOrder(Arrays.asList(), controller.communicableEntitiesInRange("DeviceB"));
+
+        // Satellite teleports to 0 degrees
+        controller.simulate();
+        assertListAreEqualIgnoringOrder(Arrays.asList(), controller.communicableEntitiesInRange("DeviceA"));
+        assertListAreEqualIgnoringOrder(Arrays.asList("Satellite1"), controller.communicableEntitiesInRange("DeviceB"));
+        assertListAreEqualIgnoringOrder(Arrays.asList("DeviceB"), controller.communicableEntitiesInRange("Satellite1"));
+    }
+
+    @Test
+    public void testCartesianHelpersMatchMathsHelper() {
+        Random random = new Random(8);
+        for (int i = 0; i < 100000; i++) {
+            Angle angleA = Angle.fromRadians(random.nextDouble() * 2 * Math.PI);
+            Angle angleB = Angle.fromRadians(random.nextDouble() * 2 * Math.PI);
+            double heightA = MathsHelper.RADIUS_OF_JUPITER + random.nextInt(100000);
+            double heightB = MathsHelper.RADIUS_OF_JUPITER + random.nextInt(100000);
+            double ax = Math.cos(angleA.toRadians()) * heightA, ay = Math.sin(angleA.toRadians()) * heightA;
+            double bx = Math.cos(angleB.toRadians()) * heightB, by = Math.sin(angleB.toRadians()) * heightB;
+
+            assertEquals(MathsHelper.isVisible(heightA, angleA, heightB, angleB),
+                    CartesianHelpers.isVisible(ax, ay, ax * ax + ay * ay, bx, by));
+
+            // Make the range land right on the distance every so often
+            double distance = MathsHelper.getDistance(heightA, angleA, heightB, angleB);
+            int range = random.nextBoolean() ? (int) Math.round(distance) : random.nextInt(200000);
+            assertEquals(distance <= range, CartesianHelpers.isWithinRange(ax, ay, bx, by, range));
+        }
+    }
+
+    @Test
+    public void testLinkThresholdsMatchExactCheck() {
+        Random random = new Random(9);
+        SatelliteFactory satelliteFactory = new SatelliteFactory();
+        DeviceFactory deviceFactory = new DeviceFactory();
+        String[] satelliteTypes = { "StandardSatellite", "TeleportingSatellite", "RelaySatellite" };
+        String[] deviceTypes = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+        // Only a few heights so thresholds are reused
+        double[] heights = { 75000, 80000, 120000, 150000 };
+
+        List<BlackoutObject> blackoutObjects = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Angle position = Angle.fromRadians(random.nextDouble() * 2 * Math.PI);
+            if (random.nextBoolean()) {
+                blackoutObjects.add(satelliteFactory.createNewSatellite("Satellite" + i, position,
+                        heights[random.nextInt(heights.length)], satelliteTypes[random.nextInt(3)]));
+            } else {
+                blackoutObjects.add(deviceFactory.createNewDevice("Device" + i, position,
+                        deviceTypes[random.nextInt(3)]));
+            }
+        }
+
+        LinkThresholds linkThresholds = new LinkThresholds();
+        for (BlackoutObject source : blackoutObjects) {
+            for (BlackoutObject target : blackoutObjects) {
+                assertEquals(BlackoutHelpers.isCommunicable(source, target),
+                        linkThresholds.isCommunicable(source, target));
+            }
+        }
+    }
 }
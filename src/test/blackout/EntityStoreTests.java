@@ -0,0 +1,70 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+
+import unsw.entities.BlackoutObject;
+import unsw.entities.EntityStore;
+import unsw.entities.devices.LaptopDevice;
+import unsw.entities.movement.Immobile;
+import unsw.entities.satellites.StandardSatellite;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityStoreTests {
+    @Test
+    public void testObjectsKeepTheirStateWhenMovedBetweenStores() {
+        BlackoutObject satellite = new StandardSatellite();
+        satellite.setPosition(Angle.fromDegrees(30));
+        satellite.setHeight(80000);
+        double x = satellite.getX();
+        double y = satellite.getY();
+
+        EntityStore store = new EntityStore(1);
+        satellite.moveTo(store);
+        assertEquals(1, store.getNumObjects());
+        assertEquals(Angle.fromDegrees(30), satellite.getPosition());
+        assertEquals(80000, satellite.getHeight());
+        assertEquals(x, satellite.getX());
+        assertEquals(y, satellite.getY());
+        assertEquals(2500, satellite.getLinearSpeed());
+        assertEquals(150000, satellite.getRange());
+        assertTrue(satellite.doesSupport("HandheldDevice"));
+        assertFalse(satellite.doesSupport("DesktopDevice"));
+
+        satellite.detach();
+        assertEquals(0, store.getNumObjects());
+        assertEquals(Angle.fromDegrees(30), satellite.getPosition());
+        assertEquals(x, satellite.getX());
+    }
+
+    @Test
+    public void testHandlesAreReusedAndObjectsDoNotShareState() {
+        EntityStore store = new EntityStore(1);
+        BlackoutObject first = new LaptopDevice(new Immobile());
+        BlackoutObject second = new StandardSatellite();
+        first.setPosition(Angle.fromDegrees(10));
+        second.setPosition(Angle.fromDegrees(20));
+        second.setHeight(90000);
+        first.moveTo(store);
+        second.moveTo(store);
+        assertEquals(2, store.getNumObjects());
+
+        first.detach();
+        BlackoutObject third = new StandardSatellite();
+        third.setPosition(Angle.fromDegrees(40));
+        third.setHeight(100000);
+        third.moveTo(store);
+        assertEquals(2, store.getNumObjects());
+
+        assertEquals(Angle.fromDegrees(10), first.getPosition());
+        assertEquals(Angle.fromDegrees(20), second.getPosition());
+        assertEquals(Angle.fromDegrees(40), third.getPosition());
+        assertEquals(90000, second.getHeight());
+        assertEquals(100000, third.getHeight());
+        assertFalse(first.doesSupport("LaptopDevice"));
+        assertTrue(third.doesSupport("LaptopDevice"));
+    }
+}
@@ -4,19 +4,34 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 
+import unsw.blackout.AdmissionQueue;
 import unsw.blackout.BlackoutController;
 import unsw.blackout.FileTransferException;
+import unsw.blackout.StripeScheduler;
+import unsw.entities.filemanagement.BlobStore;
+import unsw.entities.filemanagement.FileInfo;
+import unsw.entities.filemanagement.FileStorage;
+import unsw.entities.filemanagement.StripedTransfer;
+import unsw.entities.satellites.StandardSatellite;
+import unsw.response.models.AdmissionQueueResponse;
+import unsw.response.models.DeliveryResponse;
 import unsw.response.models.FileInfoResponse;
 import unsw.response.models.EntityInfoResponse;
 import unsw.utils.Angle;
+import unsw.utils.FileDataHelpers;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
 
 @TestInstance(value = Lifecycle.PER_CLASS)
 public class FileTransferTests {
@@ -541,4 +556,608 @@ public class FileTransferTests {
                                 () -> controller.sendFile("testfile1", "Satellite2", "Satellite1"));
         }
 
+        @Test
+        public void testFileDataPrefixSharesContent() {
+                String content = "the quick brown fox";
+                FileInfo transferFile = new FileInfo("testfile", "", content.length(), true);
+
+                transferFile.setFileDataPrefix(content, 9);
+                assertEquals(9, transferFile.getFileDataSize());
+                assertEquals("the quick", transferFile.getFileData());
+
+                transferFile.setFileDataPrefix(content, content.length());
+                assertEquals(content.length(), transferFile.getFileDataSize());
+                assertTrue(content == transferFile.getFileData());
+        }
+
+        @Test
+        public void testRemoveTBytesFromFileDataPrefix() {
+                String content = "the quick brown fox jumps over the lazy dog";
+                FileInfo originalFile = new FileInfo("testfile", "", content.length(), false);
+                originalFile.setFileDataPrefix(content, 19);
+
+                FileInfo transferFile = new FileInfo("testfile", "", content.length(), true);
+                transferFile.setFileDataPrefix(content, 4);
+                assertTrue(originalFile.startsWith(transferFile));
+                assertFalse(transferFile.startsWith(originalFile));
+                assertFalse(originalFile.startsWith(new FileInfo("testfile", "thy", 3, false)));
+
+                transferFile.removeTBytes(originalFile, transferFile.getFileDataSize());
+                assertEquals("the quick brown fox", originalFile.getFileData());
+                assertEquals("the quick brown fox", transferFile.getFileData());
+                assertFalse(transferFile.isInTransfer());
+
+                // Nothing is copied when there are no "t" bytes to remove
+                FileInfo otherFile = new FileInfo("testfile", "", content.length(), true);
+                otherFile.removeTBytes(content, 19, 1);
+                assertEquals("the quick brown fox", otherFile.getFileData());
+                assertEquals(19, otherFile.getFileSize());
+
+                originalFile.removeTBytes(originalFile, 0);
+                assertEquals("he quick brown fox", originalFile.getFileData());
+                assertEquals(18, originalFile.getFileSize());
+        }
+
+        @Test
+        public void testBlobStoreSharesIdenticalContent() {
+                BlobStore blobStore = new BlobStore();
+                FileStorage storageA = new FileStorage(-1, -1);
+                FileStorage storageB = new FileStorage(-1, -1);
+                storageA.setBlobStore(blobStore);
+                storageB.setBlobStore(blobStore);
+
+                storageA.addFile(new FileInfo("fileA", new String("same content"), 12, false));
+                storageB.addFile(new FileInfo("fileB", new String("same content"), 12, false));
+                assertEquals(1, blobStore.getNumBlobs());
+                assertEquals(12, blobStore.getBytesStored());
+                assertTrue(storageA.getFile("fileA").getFileData() == storageB.getFile("fileB").getFileData());
+
+                // Bytes used are still counted separately
+                assertEquals(12, storageA.getBytesUsed());
+                assertEquals(12, storageB.getBytesUsed());
+
+                storageA.removeFile("fileA");
+                assertEquals(1, blobStore.getNumBlobs());
+                storageB.getFile("fileB").setFileData("other content");
+                assertEquals(1, blobStore.getNumBlobs());
+                assertEquals(13, blobStore.getBytesStored());
+                storageB.setBlobStore(null);
+                assertEquals(0, blobStore.getNumBlobs());
+        }
+
+        @Test
+        public void testRemoveCharacterMatchesRegex() {
+                assertEquals("hello", FileDataHelpers.removeCharacter("hello", 't', 0));
+                assertEquals("", FileDataHelpers.removeCharacter("ttt", 't', 0));
+                assertEquals("tt", FileDataHelpers.removeCharacter("ttt", 't', 2));
+                assertEquals("tes", FileDataHelpers.removeCharacter("test", 't', 1));
+                assertEquals("", FileDataHelpers.removeCharacter("", 't', 0));
+
+                String noTs = "hello world";
+                assertTrue(noTs == FileDataHelpers.removeCharacter(noTs, 't', 3));
+
+                Random random = new Random(13);
+                for (int i = 0; i < 1000; i++) {
+                        StringBuilder data = new StringBuilder();
+                        int length = random.nextInt(50);
+                        for (int j = 0; j < length; j++) {
+                                data.append("abt xyz".charAt(random.nextInt(7)));
+                        }
+                        int startIndex = random.nextInt(length + 1);
+                        String expected = data.substring(0, startIndex)
+                                        + data.substring(startIndex).replaceAll("t", "");
+                        assertEquals(expected, FileDataHelpers.removeCharacter(data.toString(), 't', startIndex));
+                }
+        }
+
+        @Test
+        public void testTransferProgressReportedEveryMinute() {
+                BlackoutController controller = new BlackoutController();
+
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+                controller.createSatellite("Satellite1", "StandardSatellite", 86458, Angle.fromDegrees(126));
+
+                String message1 = "ttttaaaattttt";
+                controller.addFileToDevice("DeviceA", "Testfile1", message1);
+                assertDoesNotThrow(() -> controller.sendFile("Testfile1", "DeviceA", "Satellite1"));
+
+                // Progress is worked out when asked for rather than every minute
+                for (int minute = 1; minute < message1.length(); minute++) {
+                        controller.simulate();
+                        assertEquals(new FileInfoResponse("Testfile1", message1.substring(0, minute),
+                                        message1.length(), false),
+                                        controller.getInfo("Satellite1").getFiles().get("Testfile1"));
+                }
+
+                controller.simulate();
+                assertEquals(new FileInfoResponse("Testfile1", message1, message1.length(), true),
+                                controller.getInfo("Satellite1").getFiles().get("Testfile1"));
+        }
+
+        private BlackoutController createSharedDownloadScenario(boolean fairBandwidthAllocation) {
+                BlackoutController controller = new BlackoutController();
+                controller.setFairBandwidthAllocation(fairBandwidthAllocation);
+
+                controller.createSatellite("Satellite1", "TeleportingSatellite", 86458, Angle.fromDegrees(10));
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(0));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+                controller.createDevice("DeviceC", "LaptopDevice", Angle.fromDegrees(20));
+
+                controller.addFileToDevice("DeviceA", "Small", "a".repeat(15));
+                controller.addFileToDevice("DeviceB", "Large1", "b".repeat(60));
+                controller.addFileToDevice("DeviceC", "Large2", "c".repeat(60));
+                assertDoesNotThrow(() -> controller.sendFile("Small", "DeviceA", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFile("Large1", "DeviceB", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFile("Large2", "DeviceC", "Satellite1"));
+                return controller;
+        }
+
+        private int getBytesRecieved(BlackoutController controller) {
+                return controller.getInfo("Satellite1").getFiles().values().stream()
+                                .mapToInt(file -> file.getData().length()).sum();
+        }
+
+        @Test
+        public void testFairBandwidthAllocationUsesFreedBandwidth() {
+                BlackoutController fixed = createSharedDownloadScenario(false);
+                BlackoutController fair = createSharedDownloadScenario(true);
+
+                // Both start by splitting the 15 bytes of download bandwidth three ways
+                for (int minute = 1; minute <= 3; minute++) {
+                        fixed.simulate();
+                        fair.simulate();
+                        assertEquals(15 * minute, getBytesRecieved(fixed));
+                        assertEquals(15 * minute, getBytesRecieved(fair));
+                }
+
+                // Once the small file is done, only the fair transfers use all of it
+                fixed.simulate();
+                fair.simulate();
+                assertEquals(55, getBytesRecieved(fixed));
+                assertEquals(60, getBytesRecieved(fair));
+
+                fixed.simulate(6);
+                fair.simulate(6);
+                assertEquals(115, getBytesRecieved(fixed));
+                assertEquals(135, getBytesRecieved(fair));
+                assertEquals(new FileInfoResponse("Large1", "b".repeat(60), 60, true),
+                                fair.getInfo("Satellite1").getFiles().get("Large1"));
+                assertEquals(new FileInfoResponse("Large2", "c".repeat(60), 60, true),
+                                fair.getInfo("Satellite1").getFiles().get("Large2"));
+        }
+
+        @Test
+        public void testResumableTransferContinuesFromPartialFile() {
+                BlackoutController controller = new BlackoutController();
+                controller.setResumableTransfers(true, 300);
+
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+                controller.createSatellite("Satellite1", "StandardSatellite", 84920.0, Angle.fromDegrees(122));
+
+                String message = "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrs";
+                controller.addFileToDevice("DeviceA", "LongFile", message);
+                assertDoesNotThrow(() -> controller.sendFile("LongFile", "DeviceA", "Satellite1"));
+
+                // Satellite goes out of range, but keeps what it recieved
+                controller.simulate(41);
+                assertTrue(controller.communicableEntitiesInRange("DeviceA").isEmpty());
+                assertEquals(new FileInfoResponse("LongFile", message.substring(0, 40), message.length(), false),
+                                controller.getInfo("Satellite1").getFiles().get("LongFile"));
+
+                // Satellite comes back around and continues from the partial file
+                controller.simulate(170);
+                assertFalse(controller.communicableEntitiesInRange("DeviceA").isEmpty());
+                assertEquals(new FileInfoResponse("LongFile", message.substring(0, 41), message.length(), false),
+                                controller.getInfo("Satellite1").getFiles().get("LongFile"));
+
+                controller.simulate(30);
+                assertEquals(new FileInfoResponse("LongFile", message, message.length(), true),
+                                controller.getInfo("Satellite1").getFiles().get("LongFile"));
+        }
+
+        @Test
+        public void testResumableTransferPartialFileExpires() {
+                BlackoutController controller = new BlackoutController();
+                controller.setResumableTransfers(true, 100);
+
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+                controller.createSatellite("Satellite1", "StandardSatellite", 84920.0, Angle.fromDegrees(122));
+
+                String message = "abcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrstuvwxyzabcdefghijklmnopqrs";
+                controller.addFileToDevice("DeviceA", "LongFile", message);
+                assertDoesNotThrow(() -> controller.sendFile("LongFile", "DeviceA", "Satellite1"));
+
+                controller.simulate(140);
+                assertTrue(controller.getInfo("Satellite1").getFiles().containsKey("LongFile"));
+
+                controller.simulate();
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+
+                // Nothing is left to continue once the satellite is back in range
+                controller.simulate(70);
+                assertFalse(controller.communicableEntitiesInRange("DeviceA").isEmpty());
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+                assertDoesNotThrow(() -> controller.sendFile("LongFile", "DeviceA", "Satellite1"));
+        }
+
+        @Test
+        public void testAdmissionQueueStartsFileWhenBandwidthFrees() {
+                BlackoutController controller = new BlackoutController();
+                controller.setAdmissionQueue(true);
+
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90), false);
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(100), false);
+
+                controller.addFileToDevice("DeviceA", "testfile1", "abc");
+                controller.addFileToDevice("DeviceB", "testfile2", "xyz");
+
+                controller.createSatellite("Satellite1", "StandardSatellite", 81714.0, Angle.fromDegrees(90));
+
+                assertDoesNotThrow(() -> controller.sendFile("testfile1", "DeviceA", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFile("testfile2", "DeviceB", "Satellite1"));
+                assertThrows(FileTransferException.VirtualFileAlreadyExistsException.class,
+                                () -> controller.sendFile("testfile2", "DeviceB", "Satellite1"));
+
+                AdmissionQueueResponse queue = controller.getAdmissionQueueInfo();
+                assertEquals(1, queue.getDepth());
+                assertEquals(1, queue.getDepthById().get("Satellite1"));
+                assertFalse(controller.getInfo("Satellite1").getFiles().containsKey("testfile2"));
+
+                // The first file takes up the only download until it completes
+                controller.simulate(2);
+                assertEquals(2, controller.getAdmissionQueueInfo().getOldestWaitMinutes());
+
+                controller.simulate();
+                queue = controller.getAdmissionQueueInfo();
+                assertEquals(0, queue.getDepth());
+                assertEquals(1, queue.getNumAdmitted());
+                assertEquals(3, queue.getMaxWaitMinutes());
+                assertEquals(new FileInfoResponse("testfile1", "abc", 3, true),
+                                controller.getInfo("Satellite1").getFiles().get("testfile1"));
+
+                controller.simulate(3);
+                assertEquals(new FileInfoResponse("testfile2", "xyz", 3, true),
+                                controller.getInfo("Satellite1").getFiles().get("testfile2"));
+        }
+
+        @Test
+        public void testAdmissionQueueSkipsFileWaitingOnOtherEnd() {
+                AdmissionQueue queue = new AdmissionQueue();
+                queue.add("Satellite1", "testfile1", "Satellite1", "Satellite2", 0);
+                queue.add("Satellite1", "testfile2", "Satellite1", "DeviceB", 0);
+
+                // The first file now only waits on its reciever, so the second goes ahead
+                List<String> started = new ArrayList<>();
+                queue.admitWaiting(1, (fileName, fromId, toId) -> {
+                        if (toId.equals("Satellite2")) {
+                                throw new FileTransferException.VirtualFileNoBandwidthException(toId);
+                        }
+                        started.add(fileName);
+                });
+                assertEquals(Arrays.asList("testfile2"), started);
+                assertEquals(1, queue.getDepth());
+                assertEquals(1, queue.getNumAdmitted());
+
+                // Nothing behind a file is started while the queue's own bandwidth is full
+                queue.add("Satellite1", "testfile3", "Satellite1", "DeviceB", 1);
+                queue.admitWaiting(2, (fileName, fromId, toId) -> {
+                        throw new FileTransferException.VirtualFileNoBandwidthException(fromId);
+                });
+                assertEquals(2, queue.getDepth());
+                assertEquals(2, queue.getOldestWaitMinutes(2));
+        }
+
+        @Test
+        public void testSendFileToManySharesOneUpload() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90), false);
+                controller.createSatellite("Satellite1", "StandardSatellite", 81714.0, Angle.fromDegrees(90));
+
+                controller.addFileToDevice("DeviceA", "testfile", "ab");
+                assertDoesNotThrow(() -> controller.sendFile("testfile", "DeviceA", "Satellite1"));
+                controller.simulate(2);
+
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(100), false);
+                controller.createDevice("DeviceC", "HandheldDevice", Angle.fromDegrees(80), false);
+                controller.createDevice("DeviceD", "HandheldDevice", Angle.fromDegrees(95), false);
+
+                // The standard satellite only has one upload, which both recievers share
+                assertDoesNotThrow(() -> controller.sendFileToMany("testfile", "Satellite1",
+                                Arrays.asList("DeviceB", "DeviceC")));
+                assertThrows(FileTransferException.VirtualFileNoBandwidthException.class,
+                                () -> controller.sendFile("testfile", "Satellite1", "DeviceD"));
+
+                controller.simulate();
+                assertEquals(new FileInfoResponse("testfile", "a", 2, false),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+                assertEquals(new FileInfoResponse("testfile", "a", 2, false),
+                                controller.getInfo("DeviceC").getFiles().get("testfile"));
+
+                controller.simulate();
+                assertEquals(new FileInfoResponse("testfile", "ab", 2, true),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+                assertEquals(new FileInfoResponse("testfile", "ab", 2, true),
+                                controller.getInfo("DeviceC").getFiles().get("testfile"));
+
+                // The upload ends once every reciever is done
+                assertDoesNotThrow(() -> controller.sendFile("testfile", "Satellite1", "DeviceD"));
+        }
+
+        @Test
+        public void testFairBandwidthAllocationGivesMulticastOneUpload() {
+                BlackoutController controller = new BlackoutController();
+                controller.setFairBandwidthAllocation(true);
+
+                controller.createSatellite("Satellite1", "TeleportingSatellite", 86458, Angle.fromDegrees(10));
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(0));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+                controller.createDevice("DeviceC", "LaptopDevice", Angle.fromDegrees(20));
+                controller.createDevice("DeviceD", "LaptopDevice", Angle.fromDegrees(15));
+
+                controller.addFileToDevice("DeviceA", "Multi", "m".repeat(40));
+                controller.addFileToDevice("DeviceA", "Single", "s".repeat(40));
+                assertDoesNotThrow(() -> controller.sendFile("Multi", "DeviceA", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFile("Single", "DeviceA", "Satellite1"));
+                controller.simulate(8);
+                assertTrue(controller.getInfo("Satellite1").getFiles().get("Multi").hasTransferCompleted());
+                assertTrue(controller.getInfo("Satellite1").getFiles().get("Single").hasTransferCompleted());
+
+                // The multicast takes one of two shares of the 10 byte upload, not two of three
+                assertDoesNotThrow(() -> controller.sendFileToMany("Multi", "Satellite1",
+                                Arrays.asList("DeviceB", "DeviceC")));
+                assertDoesNotThrow(() -> controller.sendFile("Single", "Satellite1", "DeviceD"));
+                controller.simulate();
+                assertEquals(new FileInfoResponse("Multi", "m".repeat(5), 40, false),
+                                controller.getInfo("DeviceB").getFiles().get("Multi"));
+                assertEquals(new FileInfoResponse("Multi", "m".repeat(5), 40, false),
+                                controller.getInfo("DeviceC").getFiles().get("Multi"));
+                assertEquals(new FileInfoResponse("Single", "s".repeat(5), 40, false),
+                                controller.getInfo("DeviceD").getFiles().get("Single"));
+        }
+
+        @Test
+        public void testSendFileToManyIsAllOrNothing() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90), false);
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(100), false);
+                controller.createSatellite("Satellite1", "StandardSatellite", 81714.0, Angle.fromDegrees(90));
+                controller.createSatellite("Satellite2", "StandardSatellite", 81714.0, Angle.fromDegrees(95));
+
+                controller.addFileToDevice("DeviceA", "testfile", "ab");
+                controller.addFileToDevice("DeviceB", "testfile", "cd");
+                assertDoesNotThrow(() -> controller.sendFile("testfile", "DeviceB", "Satellite2"));
+
+                assertThrows(FileTransferException.VirtualFileAlreadyExistsException.class,
+                                () -> controller.sendFileToMany("testfile", "DeviceA",
+                                                Arrays.asList("Satellite1", "Satellite2")));
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+        }
+
+        @Test
+        public void testStripedTransferReassemblesStripes() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90), false);
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(100), false);
+                controller.createSatellite("Satellite1", "StandardSatellite", 81714.0, Angle.fromDegrees(90));
+                controller.createSatellite("Satellite2", "StandardSatellite", 81714.0, Angle.fromDegrees(95));
+
+                String message = "abcdefgh";
+                controller.addFileToDevice("DeviceA", "testfile", message);
+                assertDoesNotThrow(() -> controller.sendFile("testfile", "DeviceA", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFile("testfile", "DeviceA", "Satellite2"));
+                controller.simulate(message.length());
+
+                // Each satellite sends half of the file at 1 byte per minute
+                assertDoesNotThrow(() -> controller.sendFileStriped("testfile",
+                                Arrays.asList("Satellite1", "Satellite2"), "DeviceB"));
+
+                controller.simulate();
+                assertEquals(new FileInfoResponse("testfile", "a", message.length(), false),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+
+                controller.simulate(2);
+                assertEquals(new FileInfoResponse("testfile", "abc", message.length(), false),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+
+                controller.simulate();
+                assertEquals(new FileInfoResponse("testfile", message, message.length(), true),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+        }
+
+        @Test
+        public void testFairBandwidthAllocationSharesWithStripes() {
+                BlackoutController controller = new BlackoutController();
+                controller.setFairBandwidthAllocation(true);
+
+                controller.createSatellite("Satellite1", "TeleportingSatellite", 86458, Angle.fromDegrees(10));
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(0));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+                controller.createDevice("DeviceC", "LaptopDevice", Angle.fromDegrees(20));
+
+                controller.addFileToDevice("DeviceA", "Striped", "s".repeat(40));
+                controller.addFileToDevice("DeviceB", "Striped", "s".repeat(40));
+                controller.addFileToDevice("DeviceC", "Single", "x".repeat(40));
+                assertDoesNotThrow(() -> controller.sendFile("Single", "DeviceC", "Satellite1"));
+                assertDoesNotThrow(() -> controller.sendFileStriped("Striped",
+                                Arrays.asList("DeviceA", "DeviceB"), "Satellite1"));
+
+                // Each stripe sender takes a share of the 15 byte download, the same as a file
+                controller.simulate();
+                assertEquals(new FileInfoResponse("Single", "x".repeat(5), 40, false),
+                                controller.getInfo("Satellite1").getFiles().get("Single"));
+                assertEquals(new FileInfoResponse("Striped", "s".repeat(5), 40, false),
+                                controller.getInfo("Satellite1").getFiles().get("Striped"));
+
+                controller.simulate(3);
+                assertEquals(new FileInfoResponse("Single", "x".repeat(20), 40, false),
+                                controller.getInfo("Satellite1").getFiles().get("Single"));
+                assertEquals(new FileInfoResponse("Striped", "s".repeat(40), 40, true),
+                                controller.getInfo("Satellite1").getFiles().get("Striped"));
+
+                // The single file gets the whole download once the stripes are done
+                controller.simulate();
+                assertEquals(new FileInfoResponse("Single", "x".repeat(35), 40, false),
+                                controller.getInfo("Satellite1").getFiles().get("Single"));
+        }
+
+        @Test
+        public void testStripesAreReassignedToSendersThatCanSend() {
+                StandardSatellite slowSender = new StandardSatellite();
+                StandardSatellite fastSender = new StandardSatellite();
+                StandardSatellite otherSender = new StandardSatellite();
+                StripedTransfer stripedTransfer = new StripedTransfer(new StandardSatellite(),
+                                new FileInfo("testfile", "", 9, true), "abcdefghi");
+                stripedTransfer.addSender(slowSender, 1);
+                stripedTransfer.addStripe(slowSender, 0, 3);
+                stripedTransfer.addSender(fastSender, 3);
+                stripedTransfer.addStripe(fastSender, 3, 6);
+                stripedTransfer.addSender(otherSender, 2);
+                stripedTransfer.addStripe(otherSender, 6, 9);
+                stripedTransfer.transfer(slowSender);
+
+                // The fastest sender is out of range too, so the rest goes to the other one
+                assertTrue(stripedTransfer.reassignStripes(slowSender, sender -> sender != fastSender));
+                assertEquals(Arrays.asList(fastSender, otherSender), stripedTransfer.getSenders());
+                stripedTransfer.transfer(otherSender);
+                stripedTransfer.transfer(otherSender);
+                assertEquals(2, stripedTransfer.getContiguousBytes());
+                stripedTransfer.transfer(otherSender);
+                assertEquals(3, stripedTransfer.getContiguousBytes());
+
+                assertFalse(stripedTransfer.reassignStripes(otherSender, sender -> false));
+        }
+
+        @Test
+        public void testStripedTransferRecieverTeleports() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(171));
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(172));
+                controller.createSatellite("Satellite1", "TeleportingSatellite", 81758, Angle.fromDegrees(179));
+
+                String message = "This file is used to test teleporting";
+                controller.addFileToDevice("DeviceA", "testfile", message);
+                controller.addFileToDevice("DeviceB", "testfile", message);
+                assertDoesNotThrow(() -> controller.sendFileStriped("testfile",
+                                Arrays.asList("DeviceA", "DeviceB"), "Satellite1"));
+
+                // Satellite1 teleported while downloading from both devices, so both lose
+                // their "t" bytes and the download is cancelled
+                controller.simulate(2);
+                assertEquals(Angle.fromDegrees(0), controller.getInfo("Satellite1").getPosition());
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+                String withoutT = "This file is used o es eleporing";
+                assertEquals(new FileInfoResponse("testfile", withoutT, withoutT.length(), true),
+                                controller.getInfo("DeviceA").getFiles().get("testfile"));
+                assertEquals(new FileInfoResponse("testfile", withoutT, withoutT.length(), true),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+        }
+
+        @Test
+        public void testStripeSizesFollowBandwidth() {
+                assertArrayEquals(new int[] { 4, 40, 56 }, StripeScheduler.getStripeSizes(100, new int[] { 1, 10, 15 }));
+                assertArrayEquals(new int[] { 5, 5 }, StripeScheduler.getStripeSizes(10, new int[] { 1, 1 }));
+                assertArrayEquals(new int[] { 3, 0 }, StripeScheduler.getStripeSizes(3, new int[] { 5, 1 }));
+        }
+
+        @Test
+        public void testDeliverFileStoresAndForwards() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(0));
+                controller.createSatellite("Satellite1", "StandardSatellite", 81714.0, Angle.fromDegrees(90));
+
+                controller.addFileToDevice("DeviceA", "testfile", "hello");
+                assertDoesNotThrow(() -> controller.deliverFile("testfile", "DeviceA", "DeviceB"));
+
+                // The satellite carries the file over to DeviceB
+                controller.simulate(5);
+                DeliveryResponse delivery = controller.getDeliveryInfo().get(0);
+                assertEquals("Satellite1", delivery.getHolderId());
+                assertEquals(1, delivery.getNumHops());
+                assertTrue(controller.communicableEntitiesInRange("DeviceB").isEmpty());
+
+                controller.simulate(35);
+                delivery = controller.getDeliveryInfo().get(0);
+                assertTrue(delivery.isDelivered());
+                assertEquals(2, delivery.getNumHops());
+                assertEquals(10, delivery.getBytesMoved());
+                assertEquals(38, delivery.getLatency());
+                assertEquals(new FileInfoResponse("testfile", "hello", 5, true),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+        }
+
+        private BlackoutController createTwoSatelliteDelivery(int deliveryExpiry) {
+                BlackoutController controller = new BlackoutController();
+                controller.setDeliveryExpiry(deliveryExpiry);
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(250));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+                controller.createSatellite("Satellite1", "StandardSatellite", 84000, Angle.fromDegrees(180));
+                controller.createSatellite("Satellite2", "StandardSatellite", 82000, Angle.fromDegrees(190));
+
+                controller.addFileToDevice("DeviceA", "testfile", "hello");
+                assertDoesNotThrow(() -> controller.deliverFile("testfile", "DeviceA", "DeviceB"));
+                return controller;
+        }
+
+        @Test
+        public void testDeliverFileAcrossSatellites() {
+                BlackoutController controller = createTwoSatelliteDelivery(-1);
+
+                // Satellite1 hands the file to Satellite2, which reaches DeviceB sooner
+                controller.simulate(160);
+                DeliveryResponse delivery = controller.getDeliveryInfo().get(0);
+                assertEquals("Satellite2", delivery.getHolderId());
+                assertEquals(2, delivery.getNumHops());
+                assertTrue(controller.getInfo("Satellite1").getFiles().isEmpty());
+
+                controller.simulate(135);
+                delivery = controller.getDeliveryInfo().get(0);
+                assertTrue(delivery.isDelivered());
+                assertEquals(3, delivery.getNumHops());
+                assertEquals(15, delivery.getBytesMoved());
+                assertEquals(295, delivery.getLatency());
+                assertEquals(new FileInfoResponse("testfile", "hello", 5, true),
+                                controller.getInfo("DeviceB").getFiles().get("testfile"));
+                assertTrue(controller.getInfo("Satellite2").getFiles().isEmpty());
+        }
+
+        @Test
+        public void testDeliverFileGivesUpAfterExpiry() {
+                BlackoutController controller = createTwoSatelliteDelivery(200);
+
+                controller.simulate(199);
+                assertFalse(controller.getDeliveryInfo().get(0).isFailed());
+                assertFalse(controller.getInfo("Satellite2").getFiles().isEmpty());
+
+                // The satellite holding the file removes its copy
+                controller.simulate();
+                DeliveryResponse delivery = controller.getDeliveryInfo().get(0);
+                assertTrue(delivery.isFailed());
+                assertEquals("Satellite2", delivery.getHolderId());
+                assertTrue(controller.getInfo("Satellite2").getFiles().isEmpty());
+
+                controller.simulate(100);
+                assertTrue(controller.getInfo("DeviceB").getFiles().isEmpty());
+        }
+
+        @Test
+        public void testFinishedDeliveriesArePruned() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(250));
+                controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(10));
+                for (int i = 0; i < 105; i++) {
+                        String fileName = "testfile" + i;
+                        controller.addFileToDevice("DeviceA", fileName, "hello");
+                        assertDoesNotThrow(() -> controller.deliverFile(fileName, "DeviceA", "DeviceB"));
+                }
+
+                // Every delivery fails once DeviceB is gone, and only the latest 100 are kept
+                controller.removeDevice("DeviceB");
+                controller.simulate();
+                List<DeliveryResponse> deliveries = controller.getDeliveryInfo();
+                assertEquals(100, deliveries.size());
+                assertTrue(deliveries.stream().allMatch(DeliveryResponse::isFailed));
+                assertEquals("testfile5", deliveries.get(0).getFilename());
+        }
 }
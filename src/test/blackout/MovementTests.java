@@ -5,10 +5,18 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 
 import unsw.blackout.BlackoutController;
+import unsw.entities.movement.MoveWithRelay;
+import unsw.entities.movement.MoveWithTeleporting;
+import unsw.interfaces.MoveBehavior;
 import unsw.response.models.EntityInfoResponse;
 import unsw.utils.Angle;
+import unsw.utils.MathsHelper;
+import unsw.utils.MovingHelpers;
+
+import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static blackout.TestHelpers.assertListAreEqualIgnoringOrder;
 import static unsw.utils.MathsHelper.RADIUS_OF_JUPITER;
 
 @TestInstance(value = Lifecycle.PER_CLASS)
@@ -168,4 +176,87 @@ public class MovementTests {
                                 (double) Math.round(controller.getInfo("Satellite1").getPosition().toRadians() * 1000)
                                                 / 1000);
         }
+
+        @Test
+        public void testSimulateManyMinutesMatchesMinuteByMinute() {
+                BlackoutController jumped = new BlackoutController();
+                BlackoutController stepped = new BlackoutController();
+
+                for (BlackoutController controller : Arrays.asList(jumped, stepped)) {
+                        controller.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(10));
+                        controller.createSatellite("Satellite2", "TeleportingSatellite", 87082, Angle.fromDegrees(175));
+                        controller.createSatellite("Satellite3", "RelaySatellite", 90000, Angle.fromDegrees(300));
+                        controller.createDevice("DeviceA", "HandheldDevice", Angle.fromDegrees(359), true);
+                        controller.createDevice("DeviceB", "LaptopDevice", Angle.fromDegrees(20));
+                }
+
+                jumped.simulate(1000);
+                for (int i = 0; i < 1000; i++) {
+                        stepped.simulate();
+                }
+
+                for (String id : Arrays.asList("Satellite1", "Satellite2", "Satellite3", "DeviceA", "DeviceB")) {
+                        assertEquals(stepped.getInfo(id).getPosition(), jumped.getInfo(id).getPosition());
+                        assertListAreEqualIgnoringOrder(stepped.communicableEntitiesInRange(id),
+                                        jumped.communicableEntitiesInRange(id));
+                }
+        }
+
+        @Test
+        public void testAdvanceIsBitIdenticalToMovingEveryMinute() {
+                double[] angularVelocities = { 2500.0 / 80000, 2500.0 / 137000, 50.0 / RADIUS_OF_JUPITER,
+                                20.0 / (RADIUS_OF_JUPITER + 1000), 0.4 };
+                double[] positions = { 0, 1, Math.toRadians(359), Math.PI };
+                for (int direction : new int[] { MathsHelper.CLOCKWISE, MathsHelper.ANTI_CLOCKWISE }) {
+                        for (double angularVelocity : angularVelocities) {
+                                for (double position : positions) {
+                                        Angle stepped = Angle.fromRadians(position);
+                                        for (int i = 0; i < 100000; i++) {
+                                                stepped = MovingHelpers.moveUsingDirection(direction, stepped,
+                                                                angularVelocity);
+                                        }
+                                        Angle jumped = MovingHelpers.advanceUsingDirection(direction,
+                                                        Angle.fromRadians(position), angularVelocity, 100000);
+                                        assertEquals(stepped.toRadians(), jumped.toRadians());
+                                }
+                        }
+                }
+        }
+
+        @Test
+        public void testRelayAdvanceIsBitIdenticalToMovingEveryMinute() {
+                double[] heights = { RADIUS_OF_JUPITER, 80000, 120000 };
+                double[] degrees = { 0, 100, 140, 165, 190, 200, 345, 350 };
+                for (double height : heights) {
+                        for (double degree : degrees) {
+                                MoveWithRelay stepping = new MoveWithRelay();
+                                MoveWithRelay advancing = new MoveWithRelay();
+                                Angle stepped = Angle.fromDegrees(degree);
+                                Angle advanced = Angle.fromDegrees(degree);
+                                // Advanced in uneven chunks, so stretches end mid-way too
+                                for (int minutes : new int[] { 1, 7, 64, 500, 3000 }) {
+                                        for (int i = 0; i < minutes; i++) {
+                                                stepped = stepping.move(stepped, RELAY_SPEED / height);
+                                        }
+                                        advanced = advancing.advance(advanced, RELAY_SPEED / height, minutes);
+                                        assertEquals(stepped.toRadians(), advanced.toRadians());
+                                }
+                        }
+                }
+        }
+
+        @Test
+        public void testTeleportingMovesEveryMinute() throws NoSuchMethodException {
+                // Teleporting depends on every minute's position, so it keeps the default loop
+                assertEquals(MoveBehavior.class, MoveWithTeleporting.class
+                                .getMethod("advance", Angle.class, double.class, int.class).getDeclaringClass());
+
+                MoveWithTeleporting stepping = new MoveWithTeleporting();
+                MoveWithTeleporting advancing = new MoveWithTeleporting();
+                Angle stepped = Angle.fromDegrees(170);
+                for (int i = 0; i < 1000; i++) {
+                        stepped = stepping.move(stepped, TELEPORTING_SPEED / 80000.0);
+                }
+                assertEquals(stepped, advancing.advance(Angle.fromDegrees(170), TELEPORTING_SPEED / 80000.0, 1000));
+        }
 }
@@ -0,0 +1,72 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+
+import unsw.SessionRegistry;
+import unsw.blackout.BlackoutController;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SessionRegistryTests {
+    @Test
+    public void testSessionsExpireAfterTimeToLive() {
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(10, 100, now::get);
+
+        BlackoutController controller = registry.getBlackoutController("a");
+        now.set(10);
+        assertSame(controller, registry.getBlackoutController("a"));
+
+        // Unused for longer than the time to live
+        now.set(21);
+        assertNotSame(controller, registry.getBlackoutController("a"));
+
+        assertEquals(1, registry.getHits());
+        assertEquals(2, registry.getMisses());
+        assertEquals(1, registry.getEvictions());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSessionEvicted() {
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(1000, 2, now::get);
+
+        BlackoutController a = registry.getBlackoutController("a");
+        now.set(1);
+        BlackoutController b = registry.getBlackoutController("b");
+        now.set(2);
+        registry.getBlackoutController("a");
+
+        // "b" was used least recently once "c" goes over the cap
+        now.set(3);
+        registry.getBlackoutController("c");
+        assertEquals(2, registry.getNumSessions());
+        assertEquals(1, registry.getEvictions());
+        assertSame(a, registry.getBlackoutController("a"));
+        assertNotSame(b, registry.getBlackoutController("b"));
+    }
+
+    @Test
+    public void testEvictionListenerToldAboutEvictedSessions() {
+        AtomicLong now = new AtomicLong(0);
+        SessionRegistry registry = new SessionRegistry(10, 1, now::get);
+        List<String> evicted = new ArrayList<>();
+        registry.setEvictionListener(evicted::add);
+
+        registry.getBlackoutController("a");
+        now.set(1);
+        registry.getBlackoutController("b");
+        assertEquals(List.of("a"), evicted);
+
+        // Expired when it is looked up again
+        now.set(20);
+        registry.getBlackoutController("b");
+        assertEquals(List.of("a", "b"), evicted);
+    }
+}
@@ -0,0 +1,204 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+
+import unsw.SimulationDeltaEncoder;
+import unsw.blackout.BlackoutController;
+import unsw.blackout.FileTransferException;
+import unsw.response.models.EntityDeltaResponse;
+import unsw.response.models.EntityInfoResponse;
+import unsw.response.models.SimulationDeltaResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+@TestInstance(value = Lifecycle.PER_CLASS)
+public class SimulationModesTests {
+        private final String[] SATELLITE_TYPES = { "StandardSatellite", "TeleportingSatellite", "RelaySatellite" };
+        private final String[] DEVICE_TYPES = { "HandheldDevice", "LaptopDevice", "DesktopDevice" };
+
+        /**
+         * Creates the same random satellites, devices and files in every given
+         * controller
+         */
+        private List<String> createScenario(long seed, BlackoutController... controllers) {
+                Random random = new Random(seed);
+                List<String> ids = new ArrayList<>();
+                for (int i = 0; i < 12; i++) {
+                        String id = "Satellite" + i;
+                        String type = SATELLITE_TYPES[random.nextInt(SATELLITE_TYPES.length)];
+                        double height = 70000 + random.nextInt(90000);
+                        Angle position = Angle.fromDegrees(random.nextInt(360));
+                        for (BlackoutController controller : controllers) {
+                                controller.createSatellite(id, type, height, position);
+                        }
+                        ids.add(id);
+                }
+                for (int i = 0; i < 10; i++) {
+                        String id = "Device" + i;
+                        String type = DEVICE_TYPES[random.nextInt(DEVICE_TYPES.length)];
+                        Angle position = Angle.fromDegrees(random.nextInt(360));
+                        boolean isMoving = random.nextBoolean();
+                        StringBuilder content = new StringBuilder();
+                        int length = 1 + random.nextInt(150);
+                        for (int j = 0; j < length; j++) {
+                                content.append("abt xyz".charAt(random.nextInt(7)));
+                        }
+                        for (BlackoutController controller : controllers) {
+                                controller.createDevice(id, type, position, isMoving);
+                                controller.addFileToDevice(id, "File" + i, content.toString());
+                        }
+                        ids.add(id);
+                }
+                return ids;
+        }
+
+        /**
+         * Tries to send the same random files in every given controller
+         */
+        private void sendRandomFiles(Random random, List<String> ids, BlackoutController... controllers) {
+                for (int i = 0; i < 10; i++) {
+                        String fromId = ids.get(random.nextInt(ids.size()));
+                        String toId = ids.get(random.nextInt(ids.size()));
+                        String fileName = "File" + random.nextInt(10);
+                        if (controllers[0].getInfo(fromId).getType().equals("RelaySatellite")) {
+                                // Relays have nothing to send
+                                continue;
+                        }
+                        for (BlackoutController controller : controllers) {
+                                try {
+                                        controller.sendFile(fileName, fromId, toId);
+                                } catch (FileTransferException e) {
+                                        // Same failures happen in every controller
+                                }
+                        }
+                }
+        }
+
+        private void assertSameState(List<String> ids, BlackoutController expected, BlackoutController actual) {
+                for (String id : ids) {
+                        assertEquals(expected.getInfo(id).toString(), actual.getInfo(id).toString());
+                }
+        }
+
+        @Test
+        public void testEventDrivenMatchesMinuteByMinute() {
+                for (long seed = 0; seed < 5; seed++) {
+                        BlackoutController stepped = new BlackoutController();
+                        BlackoutController eventDriven = new BlackoutController();
+                        List<String> ids = createScenario(seed, stepped, eventDriven);
+
+                        Random random = new Random(seed);
+                        for (int round = 0; round < 20; round++) {
+                                sendRandomFiles(random, ids, stepped, eventDriven);
+
+                                int minutes = 1 + random.nextInt(300);
+                                for (int i = 0; i < minutes; i++) {
+                                        stepped.simulate();
+                                }
+                                eventDriven.simulateEventDriven(minutes);
+
+                                assertSameState(ids, stepped, eventDriven);
+                        }
+                }
+        }
+
+        @Test
+        public void testParallelMovementMatchesSequential() {
+                ForkJoinPool pool = new ForkJoinPool(4);
+                for (long seed = 0; seed < 5; seed++) {
+                        BlackoutController sequential = new BlackoutController();
+                        BlackoutController parallel = new BlackoutController();
+                        parallel.setParallelMovement(pool, 1);
+                        List<String> ids = createScenario(seed, sequential, parallel);
+                        for (BlackoutController controller : new BlackoutController[] { sequential, parallel }) {
+                                controller.createSlope(30, 60, 10);
+                                controller.createSlope(200, 260, -5);
+                        }
+
+                        Random random = new Random(seed);
+                        for (int round = 0; round < 20; round++) {
+                                sendRandomFiles(random, ids, sequential, parallel);
+
+                                int minutes = 1 + random.nextInt(100);
+                                sequential.simulate(minutes);
+                                parallel.simulate(minutes);
+
+                                assertSameState(ids, sequential, parallel);
+                        }
+                }
+                pool.shutdown();
+        }
+
+        private Map<String, EntityInfoResponse> getAllInfo(BlackoutController controller) {
+                Map<String, EntityInfoResponse> result = new HashMap<>();
+                controller.listSatelliteIds().forEach(id -> result.put(id, controller.getInfo(id)));
+                controller.listDeviceIds().forEach(id -> result.put(id, controller.getInfo(id)));
+                return result;
+        }
+
+        @Test
+        public void testDeltaFramesOnlyHaveChanges() {
+                BlackoutController controller = new BlackoutController();
+                controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+                controller.createDevice("DeviceB", "HandheldDevice", Angle.fromDegrees(300));
+                controller.createSatellite("Satellite1", "StandardSatellite", 86458, Angle.fromDegrees(126));
+                controller.addFileToDevice("DeviceA", "Testfile1", "Hello world");
+
+                SimulationDeltaEncoder encoder = new SimulationDeltaEncoder();
+                Map<String, EntityInfoResponse> first = getAllInfo(controller);
+                assertSame(first, encoder.encode(first));
+
+                assertDoesNotThrow(() -> controller.sendFile("Testfile1", "DeviceA", "Satellite1"));
+                controller.simulate();
+                SimulationDeltaResponse delta = (SimulationDeltaResponse) encoder.encode(getAllInfo(controller));
+                assertEquals(1, delta.getChanged().size());
+                EntityDeltaResponse satellite = delta.getChanged().get("Satellite1");
+                assertEquals(controller.getInfo("Satellite1").getPosition(), satellite.getPosition());
+                // Files new to the frames are sent in full
+                assertEquals("H", satellite.getAddedFiles().get("Testfile1").getData());
+                assertEquals(11, satellite.getAddedFiles().get("Testfile1").getFileSize());
+                assertFalse(satellite.getAddedFiles().get("Testfile1").hasTransferCompleted());
+                assertEquals(0, satellite.getFiles().size());
+                assertEquals(0, delta.getAdded().size());
+                assertEquals(0, delta.getRemoved().size());
+
+                controller.removeDevice("DeviceB");
+                controller.createDevice("DeviceC", "DesktopDevice", Angle.fromDegrees(180));
+                controller.addFileToDevice("DeviceC", "Testfile2", "Goodbye");
+                controller.simulate();
+                delta = (SimulationDeltaResponse) encoder.encode(getAllInfo(controller));
+                assertEquals(List.of("DeviceB"), delta.getRemoved());
+                satellite = delta.getChanged().get("Satellite1");
+                assertEquals(0, satellite.getAddedFiles().size());
+                assertEquals(2, satellite.getFiles().get("Testfile1").getBytesTransferred());
+                assertEquals(11, satellite.getFiles().get("Testfile1").getFileSize());
+                assertEquals(controller.getInfo("DeviceC"), delta.getAdded().get("DeviceC"));
+                assertEquals("Goodbye", delta.getAdded().get("DeviceC").getFiles().get("Testfile2").getData());
+                assertFalse(delta.getChanged().containsKey("DeviceC"));
+
+                // Once the transfer completes, the file is sent in full again
+                for (int i = 0; i < 8; i++) {
+                        controller.simulate();
+                        encoder.encode(getAllInfo(controller));
+                }
+                controller.simulate();
+                delta = (SimulationDeltaResponse) encoder.encode(getAllInfo(controller));
+                satellite = delta.getChanged().get("Satellite1");
+                assertEquals("Hello world", satellite.getAddedFiles().get("Testfile1").getData());
+                assertTrue(satellite.getAddedFiles().get("Testfile1").hasTransferCompleted());
+        }
+}
@@ -0,0 +1,86 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import unsw.SimulationStreamer;
+import unsw.blackout.BlackoutController;
+import unsw.response.models.EntityInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class SimulationStreamerTests {
+    private static Map<String, EntityInfoResponse> getState(BlackoutController controller) {
+        Map<String, EntityInfoResponse> state = new HashMap<>();
+        controller.listSatelliteIds().forEach(id -> state.put(id, controller.getInfo(id)));
+        controller.listDeviceIds().forEach(id -> state.put(id, controller.getInfo(id)));
+        return state;
+    }
+
+    private BlackoutController createController() {
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(0));
+        controller.createDevice("DeviceA", "LaptopDevice", Angle.fromDegrees(90));
+        return controller;
+    }
+
+    @Test
+    public void testFramesAreWrittenWithoutTheLock() throws IOException {
+        BlackoutController controller = createController();
+        BlackoutController expected = createController();
+
+        List<Boolean> lockedWhileWriting = new ArrayList<>();
+        StringWriter out = new StringWriter() {
+            @Override
+            public void flush() {
+                lockedWhileWriting.add(Thread.holdsLock(controller));
+                super.flush();
+            }
+        };
+        List<Boolean> lockedOnTick = new ArrayList<>();
+        Gson gson = new Gson();
+        SimulationStreamer streamer = new SimulationStreamer(gson, SimulationStreamerTests::getState);
+        streamer.stream(controller, 3, false, result -> lockedOnTick.add(Thread.holdsLock(controller)), out);
+
+        assertEquals(List.of(true, true, true), lockedOnTick);
+        assertEquals(List.of(false, false, false), lockedWhileWriting);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            expected.simulate();
+            assertEquals(gson.toJson(getState(expected)), line);
+        }
+    }
+
+    @Test
+    public void testDeltaFramesAfterTheFirst() throws IOException {
+        BlackoutController controller = createController();
+        SimulationStreamer streamer = new SimulationStreamer(new Gson(), SimulationStreamerTests::getState);
+
+        StringWriter out = new StringWriter();
+        streamer.stream(controller, 2, true, result -> {
+        }, out);
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        JsonObject first = JsonParser.parseString(lines[0]).getAsJsonObject();
+        JsonObject second = JsonParser.parseString(lines[1]).getAsJsonObject();
+        assertTrue(first.has("Satellite1"));
+        assertFalse(first.has("changed"));
+        assertTrue(second.has("changed"));
+        assertTrue(second.getAsJsonObject("changed").has("Satellite1"));
+    }
+}
@@ -0,0 +1,123 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+
+import unsw.SnapshotCache;
+import unsw.blackout.BlackoutController;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SnapshotCacheTests {
+    @Test
+    public void testStateVersionChangesOnMutationsAndTicks() {
+        BlackoutController controller = new BlackoutController();
+        long version = controller.getStateVersion();
+
+        controller.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(0));
+        assertTrue(controller.getStateVersion() > version);
+        version = controller.getStateVersion();
+
+        controller.getInfo("Satellite1");
+        controller.listSatelliteIds();
+        assertEquals(version, controller.getStateVersion());
+
+        controller.simulate();
+        assertTrue(controller.getStateVersion() > version);
+        version = controller.getStateVersion();
+
+        controller.simulate(100);
+        assertTrue(controller.getStateVersion() > version);
+    }
+
+    @Test
+    public void testSnapshotIsSerializedOncePerStateVersion() {
+        AtomicInteger numSerialized = new AtomicInteger(0);
+        SnapshotCache cache = new SnapshotCache(result -> {
+            numSerialized.incrementAndGet();
+            return result.toString();
+        }, 10);
+
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(0));
+
+        SnapshotCache.Snapshot first = cache.get("session", "info", controller, () -> controller.getInfo("Satellite1"));
+        SnapshotCache.Snapshot second = cache.get("session", "info", controller, () -> controller.getInfo("Satellite1"));
+        assertSame(first, second);
+        assertSame(first.getBody(), second.getBody());
+        assertEquals(1, numSerialized.get());
+
+        controller.simulate();
+        SnapshotCache.Snapshot third = cache.get("session", "info", controller, () -> controller.getInfo("Satellite1"));
+        assertNotEquals(first.getETag(), third.getETag());
+        assertEquals(2, numSerialized.get());
+
+        // A new controller for the same key never reuses an ETag
+        BlackoutController other = new BlackoutController();
+        other.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(0));
+        SnapshotCache.Snapshot fourth = cache.get("session", "info", other, () -> other.getInfo("Satellite1"));
+        assertNotEquals(third.getETag(), fourth.getETag());
+        assertEquals(1, cache.getNumSnapshots());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSnapshotEvicted() {
+        SnapshotCache cache = new SnapshotCache(Object::toString, 2);
+        BlackoutController controller = new BlackoutController();
+
+        SnapshotCache.Snapshot a = cache.get("session", "a", controller, () -> "a");
+        SnapshotCache.Snapshot b = cache.get("session", "b", controller, () -> "b");
+        assertSame(a, cache.get("session", "a", controller, () -> "a"));
+
+        // "b" was used least recently once "c" goes over the cap
+        cache.get("session", "c", controller, () -> "c");
+        assertEquals(2, cache.getNumSnapshots());
+        assertSame(a, cache.get("session", "a", controller, () -> "a"));
+        assertNotSame(b, cache.get("session", "b", controller, () -> "b"));
+    }
+
+    @Test
+    public void testRemovingSessionDropsOnlyItsSnapshots() {
+        SnapshotCache cache = new SnapshotCache(Object::toString, 10);
+        BlackoutController a = new BlackoutController();
+        BlackoutController b = new BlackoutController();
+
+        cache.get("a", "info", a, () -> a.listSatelliteIds());
+        cache.get("a", "list", a, () -> a.listDeviceIds());
+        SnapshotCache.Snapshot kept = cache.get("b", "info", b, () -> b.listSatelliteIds());
+        assertEquals(3, cache.getNumSnapshots());
+
+        cache.removeSession("a");
+        assertEquals(1, cache.getNumSnapshots());
+        assertSame(kept, cache.get("b", "info", b, () -> b.listSatelliteIds()));
+    }
+
+    @Test
+    public void testIfNoneMatchIsComparedWeakly() {
+        SnapshotCache cache = new SnapshotCache(Object::toString, 10);
+        BlackoutController controller = new BlackoutController();
+        controller.createSatellite("Satellite1", "StandardSatellite", 80000, Angle.fromDegrees(0));
+
+        SnapshotCache.Snapshot snapshot = cache.get("session", "info", controller, () -> controller.getInfo("Satellite1"));
+        String eTag = snapshot.getETag();
+        assertTrue(snapshot.matches(eTag));
+        assertTrue(snapshot.matches("W/" + eTag));
+        assertTrue(snapshot.matches("\"other\", " + eTag));
+        assertTrue(snapshot.matches("W/\"a,b\",W/" + eTag + " "));
+        assertTrue(snapshot.matches(" * "));
+
+        assertFalse(snapshot.matches(null));
+        assertFalse(snapshot.matches(""));
+        assertFalse(snapshot.matches("\"other\", W/\"x" + eTag + "\""));
+        assertFalse(snapshot.matches(eTag.substring(1, eTag.length() - 1)));
+        assertFalse(snapshot.matches("W/"));
+        assertFalse(snapshot.matches(eTag.substring(0, eTag.length() - 1)));
+    }
+}
@@ -0,0 +1,70 @@
+package blackout;
+
+import org.junit.jupiter.api.Test;
+
+import unsw.TickBroadcaster;
+import unsw.response.models.EntityInfoResponse;
+import unsw.utils.Angle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TickBroadcasterTests {
+    private Map<String, EntityInfoResponse> getState(double degrees) {
+        Map<String, EntityInfoResponse> state = new HashMap<>();
+        state.put("Satellite1", new EntityInfoResponse("Satellite1", Angle.fromDegrees(degrees), 80000,
+                "StandardSatellite", new HashMap<>()));
+        return state;
+    }
+
+    @Test
+    public void testTickIsSerializedOnceForAllSubscribers() throws InterruptedException {
+        AtomicInteger numSerialized = new AtomicInteger(0);
+        TickBroadcaster broadcaster = new TickBroadcaster(frame -> {
+            numSerialized.incrementAndGet();
+            return frame.toString();
+        }, 10);
+
+        TickBroadcaster.Subscriber first = broadcaster.subscribe("session", getState(0));
+        TickBroadcaster.Subscriber second = broadcaster.subscribe("session", getState(0));
+        assertTrue(first.nextEvent(0, TimeUnit.SECONDS).startsWith("event: state"));
+        assertTrue(second.nextEvent(0, TimeUnit.SECONDS).startsWith("event: state"));
+        assertEquals(2, numSerialized.get());
+
+        broadcaster.publish("session", getState(10));
+        assertEquals(3, numSerialized.get());
+        String event = first.nextEvent(0, TimeUnit.SECONDS);
+        assertTrue(event.startsWith("event: delta"));
+        assertSame(event, second.nextEvent(0, TimeUnit.SECONDS));
+
+        // Nothing is serialized for sessions without subscribers
+        broadcaster.publish("other", getState(10));
+        assertEquals(3, numSerialized.get());
+
+        broadcaster.unsubscribe("session", first);
+        broadcaster.unsubscribe("session", second);
+        assertEquals(0, broadcaster.getNumSubscribers("session"));
+        broadcaster.publish("session", getState(20));
+        assertEquals(3, numSerialized.get());
+        assertNull(first.nextEvent(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testSlowSubscriberIsClosed() {
+        TickBroadcaster broadcaster = new TickBroadcaster(Object::toString, 2);
+        TickBroadcaster.Subscriber subscriber = broadcaster.subscribe("session", getState(0));
+
+        broadcaster.publish("session", getState(10));
+        assertFalse(subscriber.isClosed());
+        broadcaster.publish("session", getState(20));
+        assertTrue(subscriber.isClosed());
+    }
+}
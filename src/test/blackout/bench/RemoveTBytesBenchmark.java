@@ -0,0 +1,88 @@
+package blackout.bench;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import unsw.utils.FileDataHelpers;
+
+/**
+ * Compares removing "t" bytes with regular expressions, as FileInfo used to,
+ * against FileDataHelpers.removeCharacter for large files. It also compares
+ * copying out a prefix of a file's content before removing "t" bytes against
+ * removing them from the prefix in place. This is not run as part of the
+ * tests, run its main method to see the results.
+ */
+public class RemoveTBytesBenchmark {
+    private static final int[] FILE_SIZES = { 1_000, 100_000, 1_000_000 };
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int ROUNDS = 50;
+
+    private interface Remover {
+        String remove(String data, int startIndex);
+    }
+
+    private static String removeUsingRegex(String data, int startIndex) {
+        return data.substring(0, startIndex) + data.substring(startIndex).replaceAll("t", "");
+    }
+
+    private static String createData(Random random, int size, String alphabet) {
+        StringBuilder data = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            data.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return data.toString();
+    }
+
+    private static long getAllocatedBytes() {
+        java.lang.management.ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threadBean)
+                    .getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static void measure(String name, Remover remover, String data) {
+        int startIndex = data.length() / 2;
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            remover.remove(data, startIndex);
+        }
+
+        long allocatedBefore = getAllocatedBytes();
+        long start = System.nanoTime();
+        int checksum = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            checksum += remover.remove(data, startIndex).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = getAllocatedBytes() - allocatedBefore;
+
+        System.out.printf("  %-8s %10.1f us/op %12d bytes/op (%d)%n", name, elapsed / 1000.0 / ROUNDS,
+                allocated / ROUNDS, checksum);
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(13);
+        for (int size : FILE_SIZES) {
+            String withTs = createData(random, size, "abt xyz");
+            String withoutTs = createData(random, size, "ab xyz");
+
+            System.out.printf("%d bytes with t bytes%n", size);
+            measure("regex", RemoveTBytesBenchmark::removeUsingRegex, withTs);
+            measure("single", (data, startIndex) -> FileDataHelpers.removeCharacter(data, 't', startIndex), withTs);
+
+            System.out.printf("%d bytes without t bytes%n", size);
+            measure("regex", RemoveTBytesBenchmark::removeUsingRegex, withoutTs);
+            measure("single", (data, startIndex) -> FileDataHelpers.removeCharacter(data, 't', startIndex),
+                    withoutTs);
+
+            // The original file only holds the first half of its content
+            int prefixSize = size / 2;
+            System.out.printf("%d bytes of content, first %d with t bytes%n", size, prefixSize);
+            measure("copy", (data, startIndex) -> FileDataHelpers
+                    .removeCharacter(data.substring(0, prefixSize), 't', startIndex / 2), withTs);
+            measure("prefix", (data, startIndex) -> FileDataHelpers
+                    .removeCharacter(data, prefixSize, 't', startIndex / 2), withTs);
+        }
+    }
+}